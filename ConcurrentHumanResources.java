@@ -0,0 +1,305 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free, thread-safe variant of HumanResources: a linked list storing Employee
+ * objects sorted chronologically by employeeID that any number of threads can use at
+ * once without a global lock.
+ *
+ * The list follows Harris' algorithm. Every next pointer is changed by compare-and-set
+ * only, and carries a mark bit: a deletion first marks the next pointer of the deleted
+ * Node (logical deletion), after which no Node can be linked behind it, and only then
+ * unlinks it. Any thread walking past a marked Node while adding or deleting helps
+ * unlinking it. findEmployee never writes nor retries: it is wait-free.
+ *
+ * Employee objects stored in the list are never modified; changeDepartment and
+ * adjustSalary publish an updated copy with compare-and-set, and findEmployee
+ * returns a copy.
+ *
+ * @author Jonnie Quezada
+ */
+public class ConcurrentHumanResources {
+    private final Node head = new Node(null, null); // sentinel, before every employee
+    private final LongAdder count = new LongAdder();
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Node
+     *********************************************************
+     */
+    /**
+     * Each node holds an Employee object and a markable address to the next Node;
+     * the mark means that the node itself is deleted
+     */
+    private static class Node {
+        private final Employee key; // the employee as added, only used for its employeeID
+        private final AtomicReference<Employee> employee;
+        private final AtomicMarkableReference<Node> next;
+
+        /**
+         * 2-arg constructor to set a Node's main.Employee field and link
+         * @param emp main.Employee object(data), never modified afterwards
+         * @param next Link to the next node
+         */
+        Node(Employee emp, Node next) {
+            key = emp;
+            employee = new AtomicReference<>(emp);
+            this.next = new AtomicMarkableReference<>(next, false);
+        }
+    }
+
+    /**
+     * The two adjacent Nodes around an employeeID
+     */
+    private static class Window {
+        private final Node previous;
+        private final Node present;
+
+        /**
+         * 2-arg constructor to set both Nodes
+         * @param previous The last Node before the employeeID
+         * @param present The first Node at or after the employeeID, null for the end of the list
+         */
+        Window(Node previous, Node present) {
+            this.previous = previous;
+            this.present = present;
+        }
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Node
+     * Implementation
+     * ********************************************************
+     */
+
+    /**
+     * Adds an employee to the list, keeping it sorted
+     * @param emp The main.Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     */
+    public boolean addEmployee(Employee emp) {
+        Employee add = new Employee(emp);
+
+        while(true) {
+            Window window = search(add);
+
+            if(window.present != null && window.present.key.equals(add))
+                return FAIL;
+
+            Node node = new Node(add, window.present);
+
+            if(window.previous.next.compareAndSet(window.present, node, false, false)) {
+                count.increment();
+                return SUCCESS;
+            }
+        }
+    }
+
+    /**
+     * Deletes the fired employee from the list
+     * @param id The ID of the main.Employee to delete
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String id) {
+        Employee fired = new Employee(id);
+
+        while(true) {
+            Window window = search(fired);
+            Node present = window.present;
+
+            if(present == null || !present.key.equals(fired))
+                return FAIL;
+
+            Node next = present.next.getReference();
+
+            // Logical deletion: once marked, the Node is deleted whatever happens next
+            if(!present.next.compareAndSet(next, next, false, true))
+                continue;
+
+            count.decrement();
+
+            // Physical deletion; if it fails, a later search unlinks the Node
+            window.previous.next.compareAndSet(present, next, false, false);
+
+            return SUCCESS;
+        }
+    }
+
+    /**
+     * Returns a copy of the main.Employee object corresponding to the employeeID.
+     * Wait-free: it only reads the list.
+     * @param employeeID The ID of the main.Employee you wish to find
+     * @return A copy of the main.Employee object, null if it is not in the list
+     */
+    public Employee findEmployee(String employeeID) {
+        Node present = searchNode(new Employee(employeeID));
+
+        return (present == null) ? null : new Employee(present.employee.get());
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeID The employee the change will apply to
+     * @param department The new department of the employee
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean changeDepartment(String employeeID, String department) {
+        return update(employeeID, emp -> emp.setDepartment(department));
+    }
+
+    /**
+     * Atomically adjusts a specific employee's salary
+     * @param employeeID The employee the change will apply to
+     * @param salary The amount to add to the employee's salary
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean adjustSalary(String employeeID, double salary) {
+        return update(employeeID, emp -> emp.setSalary(emp.getSalary() + salary));
+    }
+
+    /**
+     * Method to return the number of employees in this list. The value is only
+     * exact while no other thread is adding or deleting employees.
+     * @return The number of employees in this list
+     */
+    public int size() {
+        return count.intValue();
+    }
+
+    /**
+     * Method for indicating whether this list has items or not
+     * @return true for empty, false for has items
+     */
+    public boolean isEmpty() {
+        Node present = head.next.getReference();
+
+        while(present != null && present.next.isMarked())
+            present = present.next.getReference();
+
+        return present == null;
+    }
+
+    /**
+     * Returns the data of every employee in the list, in increasing order. Employees
+     * added or deleted while the list is being walked may or may not be included.
+     * @return A String containing all the data for each main.Employee object in the list
+     */
+    public String toString() {
+        StringBuilder temp = new StringBuilder("|\tID\t|\t\t   Name   \t\t|  Department  |  Salary \n" +
+                "----------------------------------------------------------------------\n");
+
+        for(Node present = head.next.getReference(); present != null; present = present.next.getReference()) {
+            if(!present.next.isMarked())
+                temp.append(present.employee.get()).append("\n");
+        }
+
+        return temp.toString();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Changes a copy of an employee
+     */
+    private interface EmployeeUpdate {
+        void apply(Employee emp);
+    }
+
+    /**
+     * Replaces an employee by an updated copy, retrying if another thread updated
+     * it in the meantime
+     * @param employeeID The employee the change will apply to
+     * @param change Changes the copy of the employee
+     * @return true if the employee was found, false otherwise
+     */
+    private boolean update(String employeeID, EmployeeUpdate change) {
+        Node present = searchNode(new Employee(employeeID));
+
+        if(present == null)
+            return FAIL;
+
+        while(true) {
+            Employee current = present.employee.get();
+            Employee updated = new Employee(current);
+
+            change.apply(updated);
+
+            if(present.employee.compareAndSet(current, updated))
+                return SUCCESS;
+        }
+    }
+
+    /**
+     * Walks the list without writing to it, looking for an employee
+     * @param emp The target
+     * @return The Node holding the employee, null if it is not in the list or deleted
+     */
+    private Node searchNode(Employee emp) {
+        Node present = head.next.getReference();
+
+        while(present != null && present.key.compareTo(emp) < 0)
+            present = present.next.getReference();
+
+        if(present == null || !present.key.equals(emp) || present.next.isMarked())
+            return null;
+
+        return present;
+    }
+
+    /**
+     * Returns the Nodes around the given employee, unlinking every logically deleted
+     * Node met on the way. Starts over from the head if another thread changed the
+     * list where it was unlinking.
+     * @param emp The target
+     * @return The last unmarked Node before the target and the first unmarked Node
+     *         at or after it
+     */
+    private Window search(Employee emp) {
+        retry:
+        while(true) {
+            Node previous = head;
+            Node present = previous.next.getReference();
+            boolean[] marked = new boolean[1];
+
+            while(true) {
+                if(present == null)
+                    return new Window(previous, null);
+
+                Node next = present.next.get(marked);
+
+                while(marked[0]) {
+                    if(!previous.next.compareAndSet(present, next, false, false))
+                        continue retry;
+
+                    present = next;
+
+                    if(present == null)
+                        return new Window(previous, null);
+
+                    next = present.next.get(marked);
+                }
+
+                if(present.key.compareTo(emp) >= 0)
+                    return new Window(previous, present);
+
+                previous = present;
+                present = next;
+            }
+        }
+    }
+}
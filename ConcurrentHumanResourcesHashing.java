@@ -0,0 +1,358 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe variant of HumanResourcesHashing. The buckets are guarded by a fixed
+ * number of striped locks (bucket i is guarded by lock i modulo the number of stripes)
+ * so that writers to different buckets never wait on each other, while findEmployee
+ * takes no lock at all.
+ *
+ * Reads are lock-free because the chains are never modified in place: a Node's next
+ * pointer is final, insertions add a new head and deletions copy the Nodes preceding
+ * the deleted one. Employee objects stored in the table are never mutated either;
+ * changeDepartment and adjustSalary publish an updated copy under the bucket's lock,
+ * which makes the read-modify-write of adjustSalary atomic.
+ *
+ * When the number of employees exceeds the maximum load factor of the table, the
+ * table is doubled while holding every lock.
+ *
+ * @author Jonnie Quezada
+ * @version Java 10 SE
+ */
+public class ConcurrentHumanResourcesHashing {
+    private volatile AtomicReferenceArray<Node> table;
+
+    private final ReentrantLock locks[];
+    private final LongAdder count = new LongAdder();
+    private final double maxLoadFactor;
+
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /**
+     * Each Node holds an Employee object and an address to the next Node. Both
+     * are fixed once the Node is published, except for data which may be swapped
+     * for an updated copy.
+     */
+    private static class Node {
+        final int hash;
+        final String key;
+        final Node next;
+        volatile Employee data;
+
+        /**
+         * 3-arg constructor to set every field of the Node
+         * @param hash The mixed hash of the employeeId
+         * @param data Employee object to store in the node
+         * @param next Link to the next node
+         */
+        Node(int hash, Employee data, Node next) {
+            this.hash = hash;
+            this.key = data.getEmployeeID();
+            this.data = data;
+            this.next = next;
+        }
+    }
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * No-arg constructor to set the default table size (512) and 4 lock stripes
+     * per available processor
+     */
+    public ConcurrentHumanResourcesHashing() {
+        this(512, 4 * Runtime.getRuntime().availableProcessors(), DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor to set the table's initial size, the number of lock stripes and the
+     * load factor above which the table grows. Both sizes are rounded up to the next
+     * power of two, and the table is never smaller than the number of stripes.
+     * @param sizeOfCollection The table's initial size
+     * @param concurrencyLevel The number of lock stripes
+     * @param maxLoadFactor The maximum ratio of employees to buckets before the
+     *                      table is doubled
+     * @throws IllegalArgumentException if a size or the load factor is not positive
+     */
+    public ConcurrentHumanResourcesHashing(int sizeOfCollection, int concurrencyLevel, double maxLoadFactor) {
+        if(sizeOfCollection <= 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Table size and concurrency level must be positive");
+        if(!(maxLoadFactor > 0))
+            throw new IllegalArgumentException("Load factor must be positive: " + maxLoadFactor);
+
+        int stripes = powerOfTwo(Math.min(concurrencyLevel, sizeOfCollection));
+
+        locks = new ReentrantLock[stripes];
+        for(var i = 0; i < stripes; i++)
+            locks[i] = new ReentrantLock();
+
+        table = new AtomicReferenceArray<>(powerOfTwo(sizeOfCollection));
+        this.maxLoadFactor = maxLoadFactor;
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Adds an employee to the Hashtable. The check for a duplicate and the
+     * insertion happen atomically.
+     *
+     * @param emp The Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     */
+    public boolean addEmployee(Employee emp) {
+        int hash = hashFunction(emp.getEmployeeID());
+        ReentrantLock lock = lockFor(hash);
+        boolean grow;
+
+        lock.lock();
+        try {
+            // The table is only replaced while every lock is held, so it is stable from here on
+            AtomicReferenceArray<Node> buckets = table;
+            int index = hash & (buckets.length() - 1);
+            Node head = buckets.get(index);
+
+            if(find(head, hash, emp.getEmployeeID()) != null)
+                return FAIL;
+
+            buckets.set(index, new Node(hash, new Employee(emp), head));
+            count.increment();
+
+            grow = count.sum() > maxLoadFactor * buckets.length();
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if(grow)
+            resize();
+
+        return SUCCESS;
+    }
+
+    /**
+     * Delete the employee with the given employeeId from the Hashtable
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String employeeId) {
+        int hash = hashFunction(employeeId);
+        ReentrantLock lock = lockFor(hash);
+
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node> buckets = table;
+            int index = hash & (buckets.length() - 1);
+            Node head = buckets.get(index);
+            Node present = find(head, hash, employeeId);
+
+            if(present == null)
+                return FAIL;
+
+            // Copy the Nodes before present so that readers walking the old chain are unaffected
+            Node newHead = present.next;
+            for(Node copy = head; copy != present; copy = copy.next)
+                newHead = new Node(copy.hash, copy.data, newHead);
+
+            buckets.set(index, newHead);
+            count.decrement();
+
+            return SUCCESS;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeId The employee the change will apply to
+     * @param department The new department of the employee
+     * @return true if change is successful, false otherwise
+     */
+    public boolean changeDepartment(String employeeId, String department) {
+        int hash = hashFunction(employeeId);
+        ReentrantLock lock = lockFor(hash);
+
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node> buckets = table;
+            Node present = find(buckets.get(hash & (buckets.length() - 1)), hash, employeeId);
+
+            if(present == null)
+                return FAIL;
+
+            Employee updated = new Employee(present.data);
+            updated.setDepartment(department);
+            present.data = updated;
+
+            return SUCCESS;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atomically increment or decrement a specific employee's salary
+     *
+     * @param employeeId The employee the change will apply to
+     * @param adjustValue The amount by which the employee's salary
+     *               will be incremented (positive value) or
+     *               decremented (negative value)
+     * @return true if the change was successful, false otherwise
+     */
+    public boolean adjustSalary(String employeeId, int adjustValue) {
+        int hash = hashFunction(employeeId);
+        ReentrantLock lock = lockFor(hash);
+
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node> buckets = table;
+            Node present = find(buckets.get(hash & (buckets.length() - 1)), hash, employeeId);
+
+            if(present == null)
+                return FAIL;
+
+            Employee updated = new Employee(present.data);
+            updated.setSalary(updated.getSalary() + adjustValue);
+            present.data = updated;
+
+            return SUCCESS;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the employee object who's employeeId matches the parameter.
+     * Does not lock; the copy reflects the latest completed update of that employee.
+     * @param employeeId The Id of the Employee you wish to find
+     * @return A copy of the Employee object corresponding to the parameter String employeeID
+     */
+    public Employee findEmployee(String employeeId) {
+        int hash = hashFunction(employeeId);
+        AtomicReferenceArray<Node> buckets = table;
+        Node present = find(buckets.get(hash & (buckets.length() - 1)), hash, employeeId);
+
+        return (present == null) ? null : new Employee(present.data);
+    }
+
+    /**
+     * Returns the number of employees in the Hashtable. The value is only
+     * exact while no other thread is adding or deleting employees.
+     * @return The number of employees in the Hashtable
+     */
+    public int size() {
+        return count.intValue();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Walks a chain looking for the given employeeId
+     * @param present The head of the chain
+     * @param hash The mixed hash of the employeeId
+     * @param employeeId The Id of the Employee to find
+     * @return The Node holding the employeeId, null if it is not in the chain
+     */
+    private static Node find(Node present, int hash, String employeeId) {
+        while(present != null && (present.hash != hash || !present.key.equals(employeeId)))
+            present = present.next;
+
+        return present;
+    }
+
+    /**
+     * Returns the lock guarding every bucket the given hash can map to
+     * @param hash The mixed hash of an employeeId
+     * @return The stripe's lock
+     */
+    private ReentrantLock lockFor(int hash) {
+        return locks[hash & (locks.length - 1)];
+    }
+
+    /**
+     * Doubles the table while holding every stripe's lock. Another thread may
+     * have already grown the table, in which case nothing is done.
+     */
+    private void resize() {
+        for(ReentrantLock lock : locks)
+            lock.lock();
+
+        try {
+            AtomicReferenceArray<Node> oldTable = table;
+
+            // Exact here: every add and delete holds a lock while counting
+            if(count.sum() <= maxLoadFactor * oldTable.length() || oldTable.length() == MAX_CAPACITY)
+                return;
+
+            AtomicReferenceArray<Node> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+            int mask = newTable.length() - 1;
+
+            for(var i = 0; i < oldTable.length(); i++) {
+                for(Node present = oldTable.get(i); present != null; present = present.next) {
+                    int index = present.hash & mask;
+                    newTable.set(index, new Node(present.hash, present.data, newTable.get(index)));
+                }
+            }
+
+            table = newTable;
+        }
+        finally {
+            for(ReentrantLock lock : locks)
+                lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the smallest power of two greater than or equal to the requested size
+     * @param size The requested size
+     * @return The power of two
+     */
+    private static int powerOfTwo(int size) {
+        int capacity = 1;
+
+        while(capacity < size && capacity < MAX_CAPACITY)
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    /**
+     * Hashing algorithm that takes an employeeId and returns its mixed hash, using the
+     * MurmurHash3 finalizer. The bucket index is the hash masked to the table's length
+     * and the stripe is the hash masked to the number of locks.
+     * @param employeeId employeeId of an Employee object
+     * @return the mixed hash of the employeeId
+     */
+    private static int hashFunction(String employeeId) {
+        int hash = employeeId.hashCode();
+
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return hash;
+    }
+}
@@ -0,0 +1,709 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A B+-tree data structure to store Employee objects sorted chronologically by
+ * employeeID, offering the same operations as HumanResourcesTree.
+ *
+ * Instead of one Node per employee, every node holds up to ORDER numeric employeeIDs
+ * in a sorted primitive array that is binary searched, so a lookup only visits a
+ * handful of wide nodes. Employees are only stored in the leaves, and the leaves are
+ * linked together so that ordered exports and range scans read them sequentially.
+ * Nodes never hold fewer than ORDER / 2 keys (except the root): deletions borrow
+ * from or merge with a sibling when a node gets too small.
+ *
+ * Only numeric employeeIDs are supported.
+ *
+ * @author Jonnie Quezada
+ */
+public class HumanResourcesBPlusTree implements Iterable<Employee> {
+    private Node root;
+    private int count;
+
+    private static final int ORDER = 64; // maximum number of keys per node
+    private static final int MIN_KEYS = ORDER / 2;
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Node
+     *********************************************************
+     */
+    /**
+     * Each node holds a sorted array of numeric employeeIDs. One extra slot lets a
+     * node overflow by one key before it is split.
+     */
+    private abstract static class Node {
+        int count;
+        long[] keys = new long[ORDER + 1];
+    }
+
+    /**
+     * A leaf holds the Employee objects of its keys, at the same index, and the
+     * address of the next leaf
+     */
+    private static class Leaf extends Node {
+        Employee[] values = new Employee[ORDER + 1];
+        Leaf next;
+    }
+
+    /**
+     * An inner node holds count + 1 children; keys[i] is the smallest employeeID
+     * that can be found under children[i + 1]
+     */
+    private static class Inner extends Node {
+        Node[] children = new Node[ORDER + 2];
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Node
+     * Implementation
+     * ********************************************************
+     */
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * No-arg constructor to create an empty tree
+     */
+    public HumanResourcesBPlusTree() {
+        root = new Leaf();
+        count = 0;
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Adds an employee to the Tree
+     *
+     * @param emp The Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     * @throws NumberFormatException if the employeeID is not numeric
+     */
+    public boolean addEmployee(Employee emp) {
+        long key = Long.parseLong(emp.getEmployeeID());
+        Leaf leaf = findLeaf(key);
+
+        if(Arrays.binarySearch(leaf.keys, 0, leaf.count, key) >= 0)
+            return FAIL;
+
+        Node split = insert(root, key, new Employee(emp));
+
+        // The root was split: grow the tree by one level
+        if(split != null) {
+            Inner newRoot = new Inner();
+            newRoot.keys[0] = smallestKey(split);
+            newRoot.children[0] = root;
+            newRoot.children[1] = split;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+
+        count++;
+        return SUCCESS;
+    }
+
+    /**
+     * Delete the employee with the given employeeId from the Tree
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String employeeId) {
+        Long key = keyOf(employeeId);
+
+        if(key == null || !delete(root, key))
+            return FAIL;
+
+        // The root lost its last separator: shrink the tree by one level
+        if(root instanceof Inner && root.count == 0)
+            root = ((Inner) root).children[0];
+
+        count--;
+        return SUCCESS;
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeId The employee the change will apply to
+     * @param department The new department of the employee
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean changeDepartment(String employeeId, String department) {
+        Employee emp = findEmployee(employeeId);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setDepartment(department);
+
+        return SUCCESS;
+    }
+
+    /**
+     * Increment or decrement a specific employee's salary
+     *
+     * @param employeeId The employee the change will apply to
+     * @param salary The amount by which the employee's salary
+     *               will be incremented (positive value) or
+     *               decremented (negative value)
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean adjustSalary(String employeeId, double salary) {
+        Employee emp = findEmployee(employeeId);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setSalary(salary + emp.getSalary());
+
+        return SUCCESS;
+    }
+
+    /**
+     * Returns the employee object who's employeeId matches the parameter
+     * @param employeeId The Id of the Employee you wish to find
+     * @return The Employee object corresponding to the parameter String employeeID
+     */
+    public Employee findEmployee(String employeeId) {
+        Long key = keyOf(employeeId);
+
+        if(key == null)
+            return null;
+
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+
+        return (index < 0) ? null : leaf.values[index];
+    }
+
+    /**
+     * Method for indicating whether this tree has items or not
+     * @return true for empty, false for has items
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the number of employees in the tree
+     * @return The number of employees in the tree
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the depth of the tree, that is the number of nodes visited by a lookup
+     * @return The depth of the tree
+     */
+    public int depth() {
+        int depth = 1;
+
+        for(Node present = root; present instanceof Inner; present = ((Inner) present).children[0])
+            depth++;
+
+        return depth;
+    }
+
+    /**
+     * Returns an iterator over the tree's employees in employeeID order, reading
+     * the linked leaves one after the other
+     * @return An in-order Iterator over the tree's employees
+     */
+    @Override
+    public Iterator<Employee> iterator() {
+        return rangeIterator(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the employee with the greatest employeeID less than or equal to the given one
+     * @param employeeId The employeeID to look for
+     * @return The Employee found, null if every employeeID is greater
+     * @throws NumberFormatException if the employeeID is not numeric
+     */
+    public Employee floor(String employeeId) {
+        long key = Long.parseLong(employeeId);
+        Node present = root;
+        Node candidate = null; // closest subtree holding smaller keys only
+
+        while(present instanceof Inner) {
+            int index = childIndex(present, key);
+
+            if(index > 0)
+                candidate = ((Inner) present).children[index - 1];
+
+            present = ((Inner) present).children[index];
+        }
+
+        Leaf leaf = (Leaf) present;
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+
+        if(index >= 0)
+            return leaf.values[index];
+        if(-index - 1 > 0)
+            return leaf.values[-index - 2];
+        if(candidate == null)
+            return null;
+
+        while(candidate instanceof Inner)
+            candidate = ((Inner) candidate).children[candidate.count];
+
+        return ((Leaf) candidate).values[candidate.count - 1];
+    }
+
+    /**
+     * Returns the employee with the smallest employeeID greater than or equal to the given one
+     * @param employeeId The employeeID to look for
+     * @return The Employee found, null if every employeeID is smaller
+     * @throws NumberFormatException if the employeeID is not numeric
+     */
+    public Employee ceiling(String employeeId) {
+        long key = Long.parseLong(employeeId);
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+
+        if(index < 0)
+            index = -index - 1;
+
+        // Only the root leaf can be empty, so the next leaf always has a first key
+        if(index == leaf.count) {
+            leaf = leaf.next;
+            index = 0;
+        }
+
+        return (leaf == null) ? null : leaf.values[index];
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is within the given range
+     * (both ends included), in employeeID order. Iterating the view descends the
+     * tree once, then reads the leaves sequentially.
+     * @param fromId The lowest employeeID of the range, null for no lower bound
+     * @param toId The highest employeeID of the range, null for no upper bound
+     * @return A view of the employees within the range
+     * @throws NumberFormatException if an employeeID is not numeric
+     */
+    public Iterable<Employee> rangeScan(String fromId, String toId) {
+        long from = (fromId == null) ? Long.MIN_VALUE : Long.parseLong(fromId);
+        long to = (toId == null) ? Long.MAX_VALUE : Long.parseLong(toId);
+
+        return () -> rangeIterator(from, to);
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is strictly less than the
+     * given one, in employeeID order
+     * @param toId The upper bound (excluded)
+     * @return A view of the employees before toId
+     * @throws NumberFormatException if the employeeID is not numeric
+     */
+    public Iterable<Employee> headMap(String toId) {
+        long to = Long.parseLong(toId);
+
+        return () -> (to == Long.MIN_VALUE) ? rangeIterator(0, -1) : rangeIterator(Long.MIN_VALUE, to - 1);
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is greater than or equal to
+     * the given one, in employeeID order
+     * @param fromId The lower bound (included)
+     * @return A view of the employees from fromId onwards
+     * @throws NumberFormatException if the employeeID is not numeric
+     */
+    public Iterable<Employee> tailMap(String fromId) {
+        long from = Long.parseLong(fromId);
+
+        return () -> rangeIterator(from, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a string representation of all the tree's elements
+     *
+     * @return A String containing all the data for each Employee object in the tree
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+
+        for(Employee emp : this)
+            out.append(emp);
+
+        return out.toString();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Iterates over the linked leaves from a given position up to a given key
+     */
+    private static class LeafIterator implements Iterator<Employee> {
+        private Leaf leaf;
+        private int index;
+        private final long to;
+
+        /**
+         * @param leaf The leaf to start from
+         * @param index The position to start from in the leaf
+         * @param to The highest employeeID to return
+         */
+        LeafIterator(Leaf leaf, int index, long to) {
+            this.leaf = leaf;
+            this.index = index;
+            this.to = to;
+            skipExhaustedLeaves();
+        }
+
+        /**
+         * Moves to the next leaves while the current one has no more keys
+         */
+        private void skipExhaustedLeaves() {
+            while(leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null && leaf.keys[index] <= to;
+        }
+
+        @Override
+        public Employee next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+
+            Employee emp = leaf.values[index++];
+            skipExhaustedLeaves();
+
+            return emp;
+        }
+    }
+
+    /**
+     * Returns an iterator over the employees whose key is within the given range
+     * (both ends included): descends to the leaf of the lower bound, then follows
+     * the leaf links
+     * @param from The lowest key of the range
+     * @param to The highest key of the range
+     * @return An in-order Iterator over the range
+     */
+    private Iterator<Employee> rangeIterator(long from, long to) {
+        Leaf leaf = findLeaf(from);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.count, from);
+
+        return new LeafIterator(leaf, (index < 0) ? -index - 1 : index, to);
+    }
+
+    /**
+     * Returns the leaf where the given key is, or would be inserted
+     * @param key A numeric employeeID
+     * @return The leaf for the key
+     */
+    private Leaf findLeaf(long key) {
+        Node present = root;
+
+        while(present instanceof Inner)
+            present = ((Inner) present).children[childIndex(present, key)];
+
+        return (Leaf) present;
+    }
+
+    /**
+     * Returns the index of the child of an inner node under which the key is
+     * @param node An inner node
+     * @param key A numeric employeeID
+     * @return The index of the child to descend into
+     */
+    private static int childIndex(Node node, long key) {
+        int index = Arrays.binarySearch(node.keys, 0, node.count, key);
+
+        return (index >= 0) ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Inserts a key that is not in the tree into a subtree, splitting the nodes
+     * that overflow on the way back up
+     * @param node The root of the subtree
+     * @param key The numeric employeeID
+     * @param emp The Employee object to store
+     * @return The new right sibling of node if it was split, null otherwise
+     */
+    private static Node insert(Node node, long key, Employee emp) {
+        if(node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = -Arrays.binarySearch(leaf.keys, 0, leaf.count, key) - 1;
+
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.count - index);
+            System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.count - index);
+            leaf.keys[index] = key;
+            leaf.values[index] = emp;
+            leaf.count++;
+
+            return (leaf.count > ORDER) ? splitLeaf(leaf) : null;
+        }
+
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, key);
+        Node split = insert(inner.children[index], key, emp);
+
+        if(split == null)
+            return null;
+
+        System.arraycopy(inner.keys, index, inner.keys, index + 1, inner.count - index);
+        System.arraycopy(inner.children, index + 1, inner.children, index + 2, inner.count - index);
+        inner.keys[index] = smallestKey(split);
+        inner.children[index + 1] = split;
+        inner.count++;
+
+        return (inner.count > ORDER) ? splitInner(inner) : null;
+    }
+
+    /**
+     * Moves the upper half of an overflowing leaf into a new leaf linked after it
+     * @param leaf The leaf to split
+     * @return The new leaf
+     */
+    private static Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int half = leaf.count / 2;
+
+        right.count = leaf.count - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, half, right.values, 0, right.count);
+        Arrays.fill(leaf.values, half, leaf.count, null);
+        leaf.count = half;
+
+        right.next = leaf.next;
+        leaf.next = right;
+
+        return right;
+    }
+
+    /**
+     * Moves the upper half of an overflowing inner node into a new inner node. The
+     * middle key moves up to the parent (it stays the smallest key of the new node).
+     * @param inner The inner node to split
+     * @return The new inner node
+     */
+    private static Inner splitInner(Inner inner) {
+        Inner right = new Inner();
+        int middle = inner.count / 2;
+
+        right.count = inner.count - middle - 1;
+        System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+        Arrays.fill(inner.children, middle + 1, inner.count + 1, null);
+        inner.count = middle;
+
+        return right;
+    }
+
+    /**
+     * Returns the smallest key that can be found in a subtree
+     * @param node The root of the subtree
+     * @return The smallest key of the subtree
+     */
+    private static long smallestKey(Node node) {
+        while(node instanceof Inner)
+            node = ((Inner) node).children[0];
+
+        return node.keys[0];
+    }
+
+    /**
+     * Deletes a key from a subtree, fixing the children that underflow on the way
+     * back up
+     * @param node The root of the subtree
+     * @param key The numeric employeeID
+     * @return true if the key was found, false otherwise
+     */
+    private static boolean delete(Node node, long key) {
+        if(node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+
+            if(index < 0)
+                return false;
+
+            System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+            System.arraycopy(leaf.values, index + 1, leaf.values, index, leaf.count - index - 1);
+            leaf.count--;
+            leaf.values[leaf.count] = null;
+
+            return true;
+        }
+
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, key);
+
+        if(!delete(inner.children[index], key))
+            return false;
+
+        if(inner.children[index].count < MIN_KEYS)
+            fixUnderflow(inner, index);
+
+        return true;
+    }
+
+    /**
+     * Refills a child that has fewer than MIN_KEYS keys by borrowing a key from a
+     * sibling that can spare one, or otherwise by merging it with a sibling
+     * @param parent The parent of the child
+     * @param index The index of the child in the parent
+     */
+    private static void fixUnderflow(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = (index > 0) ? parent.children[index - 1] : null;
+        Node right = (index < parent.count) ? parent.children[index + 1] : null;
+
+        if(left != null && left.count > MIN_KEYS)
+            borrowFromLeft(parent, index, left, child);
+        else if(right != null && right.count > MIN_KEYS)
+            borrowFromRight(parent, index, child, right);
+        else if(left != null)
+            merge(parent, index - 1, left, child);
+        else
+            merge(parent, index, child, right);
+    }
+
+    /**
+     * Moves the last key of the left sibling to the front of the child
+     * @param parent The parent of both nodes
+     * @param index The index of the child in the parent
+     * @param left The left sibling
+     * @param child The child to refill
+     */
+    private static void borrowFromLeft(Inner parent, int index, Node left, Node child) {
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+
+        if(child instanceof Leaf) {
+            Leaf leaf = (Leaf) child;
+            Leaf sibling = (Leaf) left;
+
+            System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.count);
+            leaf.keys[0] = sibling.keys[sibling.count - 1];
+            leaf.values[0] = sibling.values[sibling.count - 1];
+            sibling.values[sibling.count - 1] = null;
+            parent.keys[index - 1] = leaf.keys[0];
+        }
+        else {
+            Inner inner = (Inner) child;
+            Inner sibling = (Inner) left;
+
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.count + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = sibling.children[sibling.count];
+            sibling.children[sibling.count] = null;
+            parent.keys[index - 1] = sibling.keys[sibling.count - 1];
+        }
+
+        child.count++;
+        left.count--;
+    }
+
+    /**
+     * Moves the first key of the right sibling to the end of the child
+     * @param parent The parent of both nodes
+     * @param index The index of the child in the parent
+     * @param child The child to refill
+     * @param right The right sibling
+     */
+    private static void borrowFromRight(Inner parent, int index, Node child, Node right) {
+        if(child instanceof Leaf) {
+            Leaf leaf = (Leaf) child;
+            Leaf sibling = (Leaf) right;
+
+            leaf.keys[leaf.count] = sibling.keys[0];
+            leaf.values[leaf.count] = sibling.values[0];
+
+            System.arraycopy(sibling.values, 1, sibling.values, 0, sibling.count - 1);
+            sibling.values[sibling.count - 1] = null;
+            System.arraycopy(sibling.keys, 1, sibling.keys, 0, sibling.count - 1);
+            parent.keys[index] = sibling.keys[0];
+        }
+        else {
+            Inner inner = (Inner) child;
+            Inner sibling = (Inner) right;
+
+            inner.keys[inner.count] = parent.keys[index];
+            inner.children[inner.count + 1] = sibling.children[0];
+            parent.keys[index] = sibling.keys[0];
+
+            System.arraycopy(sibling.keys, 1, sibling.keys, 0, sibling.count - 1);
+            System.arraycopy(sibling.children, 1, sibling.children, 0, sibling.count);
+            sibling.children[sibling.count] = null;
+        }
+
+        child.count++;
+        right.count--;
+    }
+
+    /**
+     * Appends the right node to the left one and removes the right node (and the
+     * separator between them) from the parent
+     * @param parent The parent of both nodes
+     * @param index The index of the left node in the parent
+     * @param left The node receiving the keys
+     * @param right The node being removed
+     */
+    private static void merge(Inner parent, int index, Node left, Node right) {
+        if(left instanceof Leaf) {
+            Leaf leaf = (Leaf) left;
+            Leaf sibling = (Leaf) right;
+
+            System.arraycopy(sibling.keys, 0, leaf.keys, leaf.count, sibling.count);
+            System.arraycopy(sibling.values, 0, leaf.values, leaf.count, sibling.count);
+            leaf.count += sibling.count;
+            leaf.next = sibling.next;
+        }
+        else {
+            Inner inner = (Inner) left;
+            Inner sibling = (Inner) right;
+
+            inner.keys[inner.count] = parent.keys[index];
+            System.arraycopy(sibling.keys, 0, inner.keys, inner.count + 1, sibling.count);
+            System.arraycopy(sibling.children, 0, inner.children, inner.count + 1, sibling.count + 1);
+            inner.count += sibling.count + 1;
+        }
+
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.count - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index - 1);
+        parent.children[parent.count] = null;
+        parent.count--;
+    }
+
+    /**
+     * Converts an employeeID to the numeric key stored in the tree
+     * @param employeeId employeeId of an Employee object
+     * @return The numeric value of the employeeID, null if it is not numeric
+     */
+    private static Long keyOf(String employeeId) {
+        try {
+            return Long.parseLong(employeeId);
+        }
+        catch(NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,14 +1,81 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 /**
  * Data Structure for storing Employee objects using the concept of a hashtable, which
  * is an array that may contain, at a given index, a linked list.
  *
+ * The table grows automatically once the number of employees exceeds the maximum load
+ * factor. Growing is done incrementally: a new table twice the size is allocated and a
+ * few buckets of the old table are moved over on every operation, so no single insert
+ * pays for a full rehash.
+ *
+ * The capacity is always a power of two so that a bucket index can be taken by masking
+ * the mixed hash of an employeeId instead of using a modulus.
+ *
+ * Optional secondary indexes (see enableIndexes) map each department to the
+ * employeeIds it contains and each salary to the employeeIds earning it, so that
+ * findByDepartment and findBySalaryRange only visit the matching employees.
+ *
+ * Copies are copy-on-write: the copy constructor shares every chain with the
+ * original, and each side only copies the Nodes of a chain it modifies.
+ *
+ * Changes can be recorded in a write-ahead log (see attachLog) and recovered after
+ * a crash by replaying that log on top of the last snapshot (see recover).
+ *
  * @author Jonnie Quezada
  * @version Java 10 SE
  */
 public class HumanResourcesHashing {
-    private static int size;
     private Node table[];
 
+    /*
+     * Table being drained into table while an incremental rehash is in progress,
+     * null otherwise. Buckets below rehashIndex have already been moved.
+     */
+    private Node oldTable[];
+    private int rehashIndex;
+
+    private int count;
+    private double maxLoadFactor;
+
+    // Secondary indexes, null until enableIndexes is called
+    private Map<String, Set<String>> departmentIndex;
+    private TreeMap<Double, Set<String>> salaryIndex;
+
+    private HumanResourcesLog log; // null if changes are not logged
+
+    /*
+     * Copy-on-write state. A Node may only be modified by the hashtable whose owner
+     * token it carries; every other Node may be shared with a copy. A table array
+     * flagged as shared must be cloned before one of its slots is changed.
+     */
+    private Object owner = new Object();
+    private boolean tableShared;
+    private boolean oldTableShared;
+
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int REHASH_STEPS = 4; // buckets moved per operation
+    private static final int MAX_CAPACITY = 1 << 30;
+
     private final boolean SUCCESS = true;
     private final boolean FAIL = false;
 
@@ -18,6 +85,7 @@ public class HumanResourcesHashing {
     private class Node {
         Node next;
         Employee data;
+        final Object owner = HumanResourcesHashing.this.owner;
 
         /*
          *********************************************************
@@ -42,6 +110,17 @@ public class HumanResourcesHashing {
             next = null;
             data = new Employee(emp);
         }
+
+        /**
+         * 2-arg constructor to set a Node's Employee field and link. The Employee
+         * is stored as is, without a defensive copy.
+         * @param emp Employee object to store in the node
+         * @param next Link to the next node
+         */
+        public Node(Employee emp, Node next) {
+            this.next = next;
+            data = emp;
+        }
     }
     /*
      *********************************************************
@@ -60,63 +139,66 @@ public class HumanResourcesHashing {
      *********************************************************
      */
     /**
-     * No-arg constructor to set the default table size (300)
+     * No-arg constructor to set the default table size (300, rounded up to 512)
      */
     public HumanResourcesHashing() {
-        size = 300;
-        table = new Node[size];
-
-        for(var i = 0; i < table.length; i++) {
-            table[i] = null;
-        }
+        this(300);
     }
 
     /**
-     * Constructor to set the table's size to the specified amount
-     * @param sizeOfCollection The table's size
+     * Constructor to set the table's size to the specified amount, rounded up
+     * to the next power of two
+     * @param sizeOfCollection The table's initial size
      */
     public HumanResourcesHashing(int sizeOfCollection) {
-        size = sizeOfCollection;
-        table = new Node[size];
+        this(sizeOfCollection, DEFAULT_LOAD_FACTOR);
+    }
 
-        for(var i = 0; i < table.length; i++) {
-            table[i] = null;
-        }
+    /**
+     * Constructor to set the table's initial size and the load factor above which
+     * the table grows
+     * @param sizeOfCollection The table's initial size, rounded up to the next power of two
+     * @param maxLoadFactor The maximum ratio of employees to buckets before the
+     *                      table is doubled
+     * @throws IllegalArgumentException if the size or load factor is not positive
+     */
+    public HumanResourcesHashing(int sizeOfCollection, double maxLoadFactor) {
+        if(sizeOfCollection <= 0)
+            throw new IllegalArgumentException("Table size must be positive: " + sizeOfCollection);
+        if(!(maxLoadFactor > 0))
+            throw new IllegalArgumentException("Load factor must be positive: " + maxLoadFactor);
+
+        table = new Node[tableSizeFor(sizeOfCollection)];
+        oldTable = null;
+        rehashIndex = 0;
+        count = 0;
+        this.maxLoadFactor = maxLoadFactor;
     }
 
     /**
      * Copy constructor to copy all the elements of the parameter hashtable
-     * to this hashtable
+     * to this hashtable. The copy is lazy: both hashtables share the same
+     * chains, and a chain is only copied by the side that first modifies it.
+     * The secondary indexes, if enabled, are rebuilt for the copy; the write-ahead
+     * log is not attached to the copy.
      * @param other The Hashtable to copy
      */
     public HumanResourcesHashing(HumanResourcesHashing other) {
-        size = other.table.length;
-        this.table = new Node[size];
-
-        Node present;
-        Node thisPresent;
-        for(var i = 0; i < size; i++) {
-
-            present = other.table[i];
-            if(present == null)
-                continue;
-
-            Node add = new Node(present.data);
-
-            this.table[i] = add;
-            thisPresent = this.table[i];
-
-            present = present.next;
-
-            while(present != null) {
-                Node copy = new Node(present.data);
+        this.table = other.table;
+        this.oldTable = other.oldTable;
+        this.rehashIndex = other.rehashIndex;
+        this.count = other.count;
+        this.maxLoadFactor = other.maxLoadFactor;
 
-                thisPresent.next = copy;
+        // Neither side owns any of the existing Nodes or table arrays anymore
+        other.owner = new Object();
+        other.tableShared = true;
+        other.oldTableShared = true;
+        this.tableShared = true;
+        this.oldTableShared = true;
 
-                present = present.next;
-                thisPresent = thisPresent.next;
-            }
-        }
+        if(other.departmentIndex != null)
+            enableIndexes();
     }
 
     /*
@@ -127,26 +209,152 @@ public class HumanResourcesHashing {
      *********************************************************
      */
     /**
-     * Adds an employee to the Hashtable
+     * Adds an employee to the Hashtable. The chain is walked once and the
+     * Node is only allocated if the employeeId is not already present.
      *
      * @param emp The Employee object to be added
      * @return true for successful insertion, false for failed insertion
      */
     public boolean addEmployee(Employee emp) {
-        int hashValue = hashFunction(emp.getEmployeeID());
+        checkLog();
+        rehashStep();
+
+        String employeeId = emp.getEmployeeID();
+        Node[] buckets = writable(bucketsFor(employeeId));
+        int hashValue = hashFunction(employeeId, buckets.length);
+
+        if(searchChain(buckets[hashValue], employeeId) != null)
+            return FAIL;
 
-        Node previous = searchPrevious(emp, hashValue);
-        Node present = searchPresent(previous, hashValue);
         Node add = new Node(emp);
+        add.next = buckets[hashValue];
+        buckets[hashValue] = add;
+        count++;
+        index(add.data);
+        growIfNeeded();
+
+        if(log != null)
+            log.logAdd(add.data);
+
+        return SUCCESS;
+    }
+
+    /**
+     * Returns the employee with the given employeeId, first adding the Employee
+     * created by the mapping function if there is none. The chain is walked once,
+     * and the mapping function is only called when the employeeId is absent. The
+     * created Employee is stored as is, without a defensive copy.
+     *
+     * @param employeeId The Id of the Employee to find or add
+     * @param mappingFunction Creates the Employee to add from the employeeId; it must
+     *                        return an Employee with that employeeId, or null to add nothing
+     * @return The Employee found or added, null if the mapping function returned null
+     * @throws IllegalArgumentException if the created Employee has a different employeeId
+     */
+    public Employee computeIfAbsent(String employeeId, Function<String, Employee> mappingFunction) {
+        checkLog();
+        rehashStep();
+
+        Node[] buckets = writable(bucketsFor(employeeId));
+        int hashValue = hashFunction(employeeId, buckets.length);
+        Node present = searchChain(buckets[hashValue], employeeId);
+
+        if(present != null)
+            return present.data;
+
+        Employee created = mappingFunction.apply(employeeId);
+        if(created == null)
+            return null;
+        if(!employeeId.equals(created.getEmployeeID()))
+            throw new IllegalArgumentException("Mapped Employee has employeeId " + created.getEmployeeID()
+                    + ", expected " + employeeId);
+
+        buckets[hashValue] = new Node(created, buckets[hashValue]);
+        count++;
+        index(created);
+        growIfNeeded();
+
+        if(log != null)
+            log.logAdd(created);
+
+        return created;
+    }
+
+    /**
+     * Adds a copy of the employee if its employeeId is absent, otherwise replaces the
+     * stored employee with the result of the remapping function applied to the stored
+     * employee and the given one. If the remapping function returns null, the employee
+     * is deleted. The chain is walked once whichever the outcome.
+     *
+     * @param emp The Employee object to add or to merge with the stored one
+     * @param remappingFunction Combines the stored Employee (first argument) and emp (second
+     *                          argument); it must keep the employeeId or return null
+     * @return The Employee stored after the merge, null if it was deleted
+     * @throws IllegalArgumentException if the merged Employee has a different employeeId
+     */
+    public Employee merge(Employee emp, BiFunction<Employee, Employee, Employee> remappingFunction) {
+        checkLog();
+        rehashStep();
+
+        String employeeId = emp.getEmployeeID();
+        Node[] buckets = writable(bucketsFor(employeeId));
+        int hashValue = hashFunction(employeeId, buckets.length);
+
+        Node previous = searchPrevious(buckets, employeeId, hashValue);
+        Node present = searchPresent(buckets, previous, hashValue);
 
         if(present == null) {
-            add.next = table[hashValue];
-            table[hashValue] = add;
-            return SUCCESS;
+            Node add = new Node(emp);
+            add.next = buckets[hashValue];
+            buckets[hashValue] = add;
+            count++;
+            index(add.data);
+            growIfNeeded();
+
+            if(log != null)
+                log.logAdd(add.data);
+            return add.data;
+        }
+
+        // The remapping function may modify the stored employee in place
+        if(previous != null)
+            previous = ownPath(buckets, hashValue, previous);
+        present = ownPath(buckets, hashValue, present);
+        unindex(present.data);
+        Employee merged;
+
+        try {
+            merged = remappingFunction.apply(present.data, emp);
+        }
+        catch(RuntimeException | Error e) {
+            // Index the stored employee again, as the function may have left it changed
+            index(present.data);
+            throw e;
         }
-        else
-            return FAIL;
 
+        if(merged == null) {
+            if(previous == null)
+                buckets[hashValue] = present.next;
+            else
+                previous.next = present.next;
+            count--;
+
+            if(log != null)
+                log.logDelete(employeeId);
+            return null;
+        }
+        if(!employeeId.equals(merged.getEmployeeID())) {
+            index(present.data);
+            throw new IllegalArgumentException("Merged Employee has employeeId " + merged.getEmployeeID()
+                    + ", expected " + employeeId);
+        }
+
+        present.data = merged;
+        index(merged);
+
+        if(log != null)
+            log.logPut(merged);
+        return merged;
     }
 
     /**
@@ -154,20 +362,31 @@ public class HumanResourcesHashing {
      * @return true for successful deletion, false for failed deletion
      */
     public boolean deleteEmployee(String employeeId) {
-        Employee emp = new Employee(employeeId);
-        int hashValue = hashFunction(employeeId);
+        checkLog();
+        rehashStep();
 
-        Node previous = searchPrevious(emp, hashValue);
-        Node present = searchPresent(previous, hashValue);
+        Node[] buckets = writable(bucketsFor(employeeId));
+        int hashValue = hashFunction(employeeId, buckets.length);
+
+        Node previous = searchPrevious(buckets, employeeId, hashValue);
+        Node present = searchPresent(buckets, previous, hashValue);
 
         if(present == null) {
             return FAIL;
         }
         else {
+            if(previous != null)
+                previous = ownPath(buckets, hashValue, previous);
+
             if(previous == null)
-                table[hashValue] = present.next;
+                buckets[hashValue] = present.next;
             else
                 previous.next = present.next;
+            count--;
+            unindex(present.data);
+
+            if(log != null)
+                log.logDelete(employeeId);
             return SUCCESS;
         }
     }
@@ -179,16 +398,18 @@ public class HumanResourcesHashing {
      * @return true if change is successful, false otherwise
      */
     public boolean changeDepartment(String employeeId, String department) {
-        Employee emp = new Employee(employeeId);
-        int hashValue = hashFunction(employeeId);
-
-        Node previous = searchPrevious(emp, hashValue);
-        Node present = searchPresent(previous, hashValue);
+        checkLog();
+        Node present = searchOwnedNode(employeeId);
 
         if(present == null)
             return FAIL;
         else {
+            unindex(present.data);
             present.data.setDepartment(department);
+            index(present.data);
+
+            if(log != null)
+                log.logDepartment(employeeId, department);
             return SUCCESS;
         }
     }
@@ -203,31 +424,55 @@ public class HumanResourcesHashing {
      * @return true if the change was successful, false otherwise
      */
     public boolean adjustSalary(String employeeId, int adjustValue) {
-        Employee emp = new Employee(employeeId);
-        int hashValue = hashFunction(employeeId);
-
-        Node previous = searchPrevious(emp, hashValue);
-        Node present = searchPresent(previous, hashValue);
+        checkLog();
+        Node present = searchOwnedNode(employeeId);
 
         if(present == null)
             return FAIL;
         else {
+            unindex(present.data);
             present.data.setSalary(present.data.getSalary() + adjustValue);
+            index(present.data);
+
+            if(log != null)
+                log.logSalary(employeeId, present.data.getSalary());
+            return SUCCESS;
+        }
+    }
+
+    /**
+     * Sets a specific employee's salary to the given value. Used to replay the
+     * salary records of a write-ahead log, which hold the resulting salary.
+     * @param employeeId The employee the change will apply to
+     * @param salary The new salary of the employee
+     * @return true if the change was successful, false otherwise
+     */
+    boolean setSalary(String employeeId, double salary) {
+        checkLog();
+        Node present = searchOwnedNode(employeeId);
+
+        if(present == null)
+            return FAIL;
+        else {
+            unindex(present.data);
+            present.data.setSalary(salary);
+            index(present.data);
+
+            if(log != null)
+                log.logSalary(employeeId, salary);
             return SUCCESS;
         }
     }
 
     /**
-     * Returns the employee object who's employeeId matches the parameter
+     * Returns the employee object who's employeeId matches the parameter. The
+     * Employee may be shared with copies of this hashtable, so it should not be
+     * modified directly; use changeDepartment and adjustSalary instead.
      * @param employeeId The Id of the Employee you wish to find
      * @return The Employee object corresponding to the parameter String employeeID
      */
     public Employee findEmployee(String employeeId) {
-        Employee emp = new Employee(employeeId);
-        int hashValue = hashFunction(employeeId);
-
-        Node previous = searchPrevious(emp, hashValue);
-        Node present = searchPresent(previous, hashValue);
+        Node present = searchNode(employeeId);
 
         if(present == null)
             return null;
@@ -236,19 +481,271 @@ public class HumanResourcesHashing {
         }
     }
 
+    /**
+     * Returns the number of employees in the Hashtable
+     * @return The number of employees in the Hashtable
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Builds the department and salary secondary indexes from the current employees
+     * and keeps them up to date through every later operation of the hashtable. Does
+     * nothing if the indexes are already enabled. Employees returned by findEmployee
+     * must not be modified directly once the indexes are enabled, or the indexes will
+     * go stale; use changeDepartment and adjustSalary instead.
+     */
+    public void enableIndexes() {
+        if(departmentIndex != null)
+            return;
+
+        departmentIndex = new HashMap<>();
+        salaryIndex = new TreeMap<>();
+
+        forEachEmployee(this::index);
+    }
+
+    /**
+     * Returns the employees of the given department, in no particular order. Uses
+     * the department index if enabled, otherwise scans the whole hashtable.
+     * @param department The department to look for
+     * @return The employees of the department
+     */
+    public List<Employee> findByDepartment(String department) {
+        List<Employee> found = new ArrayList<>();
+
+        if(departmentIndex != null) {
+            for(String employeeId : departmentIndex.getOrDefault(department, Collections.emptySet()))
+                found.add(searchChain(bucketHead(employeeId), employeeId).data);
+            return found;
+        }
+
+        forEachEmployee(emp -> {
+            if(Objects.equals(emp.getDepartment(), department))
+                found.add(emp);
+        });
+        return found;
+    }
+
+    /**
+     * Returns the employees whose salary is within the given range (inclusive),
+     * sorted by salary. Uses the salary index if enabled, otherwise scans the
+     * whole hashtable.
+     * @param from The lowest salary of the range
+     * @param to The highest salary of the range
+     * @return The employees whose salary is within the range
+     */
+    public List<Employee> findBySalaryRange(double from, double to) {
+        List<Employee> found = new ArrayList<>();
+
+        if(salaryIndex != null) {
+            if(from > to)
+                return found;
+
+            for(Set<String> employeeIds : salaryIndex.subMap(from, true, to, true).values()) {
+                for(String employeeId : employeeIds)
+                    found.add(searchChain(bucketHead(employeeId), employeeId).data);
+            }
+            return found;
+        }
+
+        forEachEmployee(emp -> {
+            if(emp.getSalary() >= from && emp.getSalary() <= to)
+                found.add(emp);
+        });
+        found.sort(Comparator.comparingDouble(Employee::getSalary));
+        return found;
+    }
+
+    /**
+     * Walks every chain of the current and old tables, in no particular order
+     * @param action Called with each stored Employee object
+     */
+    private void forEachEmployee(Consumer<Employee> action) {
+        for(Node[] buckets : new Node[][] { table, oldTable }) {
+            if(buckets == null)
+                continue;
+
+            for(var i = 0; i < buckets.length; i++) {
+                for(Node present = buckets[i]; present != null; present = present.next)
+                    action.accept(present.data);
+            }
+        }
+    }
+
+    /**
+     * Throws if a log is attached but can no longer record changes. Called before
+     * each change, so that a failing log leaves the hashtable untouched.
+     * @throws UncheckedIOException if the log failed to write to disk
+     * @throws IllegalStateException if the log is closed
+     */
+    private void checkLog() {
+        if(log != null)
+            log.checkWritable();
+    }
+
+    /**
+     * Adds an employee to the secondary indexes, if enabled
+     * @param emp The stored Employee object
+     */
+    private void index(Employee emp) {
+        if(departmentIndex == null)
+            return;
+
+        departmentIndex.computeIfAbsent(emp.getDepartment(), department -> new HashSet<>())
+                .add(emp.getEmployeeID());
+        salaryIndex.computeIfAbsent(emp.getSalary(), salary -> new HashSet<>())
+                .add(emp.getEmployeeID());
+    }
+
+    /**
+     * Removes an employee from the secondary indexes, if enabled. Must be called
+     * before the employee's department or salary is changed.
+     * @param emp The stored Employee object
+     */
+    private void unindex(Employee emp) {
+        if(departmentIndex == null)
+            return;
+
+        Set<String> employeeIds = departmentIndex.get(emp.getDepartment());
+        employeeIds.remove(emp.getEmployeeID());
+        if(employeeIds.isEmpty())
+            departmentIndex.remove(emp.getDepartment());
+
+        employeeIds = salaryIndex.get(emp.getSalary());
+        employeeIds.remove(emp.getEmployeeID());
+        if(employeeIds.isEmpty())
+            salaryIndex.remove(emp.getSalary());
+    }
+
+    /**
+     * Returns the first Node of the chain the given employeeId belongs to,
+     * without advancing the incremental rehash
+     * @param employeeId The Id of an Employee
+     * @return The first Node of the employeeId's chain
+     */
+    private Node bucketHead(String employeeId) {
+        Node[] buckets = bucketsFor(employeeId);
+        return buckets[hashFunction(employeeId, buckets.length)];
+    }
+
+    /**
+     * Returns the Node holding the given employeeId, comparing the keys directly
+     * so that no Employee needs to be allocated for the search
+     * @param employeeId The Id of the Employee to find
+     * @return The Node holding the employeeId, null if it is not in the Hashtable
+     */
+    private Node searchNode(String employeeId) {
+        rehashStep();
+
+        Node[] buckets = bucketsFor(employeeId);
+        return searchChain(buckets[hashFunction(employeeId, buckets.length)], employeeId);
+    }
+
+    /**
+     * Returns the Node holding the given employeeId, first copying it (and the
+     * Nodes leading to it) if it is shared with a copy of this hashtable, so that
+     * its Employee can be modified
+     * @param employeeId The Id of the Employee to find
+     * @return The owned Node holding the employeeId, null if it is not in the Hashtable
+     */
+    private Node searchOwnedNode(String employeeId) {
+        rehashStep();
+
+        Node[] buckets = bucketsFor(employeeId);
+        int hashValue = hashFunction(employeeId, buckets.length);
+        Node present = searchChain(buckets[hashValue], employeeId);
+
+        if(present == null || present.owner == owner)
+            return present;
+
+        return ownPath(writable(buckets), hashValue, present);
+    }
+
+    /**
+     * Makes sure every Node of a chain, from its first Node up to the target, is
+     * owned by this hashtable. Shared Nodes are replaced by copies (including a copy
+     * of their Employee) and relinked. Since a shared Node can only be followed by
+     * shared Nodes, everything after the first shared Node is copied.
+     * @param buckets The writable table holding the chain
+     * @param value The index of the chain in the table
+     * @param target A Node of the chain
+     * @return The owned Node standing for target, which is target itself if it was
+     *         already owned
+     */
+    private Node ownPath(Node[] buckets, int value, Node target) {
+        Node previous = null;
+        Node present = buckets[value];
+
+        while(true) {
+            Node original = present;
+
+            if(present.owner != owner) {
+                present = new Node(original.data);
+                present.next = original.next;
+
+                if(previous == null)
+                    buckets[value] = present;
+                else
+                    previous.next = present;
+            }
+
+            if(original == target)
+                return present;
+
+            previous = present;
+            present = present.next;
+        }
+    }
+
+    /**
+     * Returns the given table (current or old), first cloning it if it is still
+     * shared with a copy of this hashtable, so that its slots can be changed
+     * @param buckets table or oldTable
+     * @return The same table, now safe to modify
+     */
+    private Node[] writable(Node[] buckets) {
+        if(buckets == table && tableShared) {
+            table = table.clone();
+            tableShared = false;
+            return table;
+        }
+        if(buckets == oldTable && oldTableShared) {
+            oldTable = oldTable.clone();
+            oldTableShared = false;
+            return oldTable;
+        }
+
+        return buckets;
+    }
+
+    /**
+     * Walks a chain looking for the given employeeId
+     * @param present The first Node of the chain
+     * @param employeeId The Id of the Employee to find
+     * @return The Node holding the employeeId, null if it is not in the chain
+     */
+    private Node searchChain(Node present, String employeeId) {
+        while(present != null && !present.data.getEmployeeID().equals(employeeId))
+            present = present.next;
+
+        return present;
+    }
+
     /**
      * Returns the Node preceding the targeted Node
-     * @param emp The parent of the node containing this Employee objecet
-     *                 we want to return
+     * @param buckets The table (current or old) holding the targeted Node
+     * @param employeeId The Id of the Employee held by the targeted Node
      * @param value The index of the LinkedList containing the targeted Node
      *              in the Hashtable
      * @return The previous pointer (Node) that precedes the targeted Node
      */
-    public Node searchPrevious(Employee emp, int value) {
+    private Node searchPrevious(Node[] buckets, String employeeId, int value) {
         Node previous = null;
-        Node present = table[value];
+        Node present = buckets[value];
 
-        while(present != null && present.data.compareTo(emp) != 0) {
+        while(present != null && !present.data.getEmployeeID().equals(employeeId)) {
             previous = present;
             present = present.next;
         }
@@ -259,27 +756,261 @@ public class HumanResourcesHashing {
     /**
      * Returns the next Node of the parameter previous Node
      *
+     * @param buckets The table (current or old) holding the targeted Node
      * @param previous Parent Node of the Node containing the employee object
      * @param value The index of the LinkedList containing the targeted Node
      *              in the Hashtable
      * @return The present (Node) that points to the targeted or after the targeted Node
      */
-    public Node searchPresent(Node previous, int value) {
+    private Node searchPresent(Node[] buckets, Node previous, int value) {
         if(previous == null)
-            return table[value];
+            return buckets[value];
         else
             return previous.next;
     }
 
+    /**
+     * Returns a report of how the employees are spread over the buckets: the load
+     * factor, the number of empty buckets, the longest chain and a histogram of chain
+     * lengths. Useful to verify the hash function on a real range of employeeIds.
+     * @return A String describing the distribution of the chains' lengths
+     */
+    public String distributionReport() {
+        int buckets = table.length + ((oldTable == null) ? 0 : oldTable.length - rehashIndex);
+        int[] histogram = new int[1];
+        int longest = 0;
+
+        for(Node[] chains : new Node[][] { table, oldTable }) {
+            if(chains == null)
+                continue;
+
+            for(var i = (chains == oldTable) ? rehashIndex : 0; i < chains.length; i++) {
+                int length = 0;
+                for(Node present = chains[i]; present != null; present = present.next)
+                    length++;
+
+                if(length >= histogram.length)
+                    histogram = Arrays.copyOf(histogram, length + 1);
+                histogram[length]++;
+                longest = Math.max(longest, length);
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("Employees: ").append(count)
+                .append(", Buckets: ").append(buckets)
+                .append(", Load factor: ").append(String.format("%.3f", (double) count / buckets))
+                .append(oldTable == null ? "" : " (rehash in progress)").append("\n")
+                .append("Empty buckets: ").append(histogram[0])
+                .append(", Longest chain: ").append(longest).append("\n")
+                .append("Chain length | Buckets\n");
+
+        for(var length = 0; length < histogram.length; length++) {
+            if(histogram[length] != 0)
+                report.append(String.format("%12d | %d%n", length, histogram[length]));
+        }
+
+        return report.toString();
+    }
+
     /**
      * Hashing algorithm that takes an employeeId and returns a hashed value corresponding to
-     * a specific index in the hashtable
+     * a specific index in the hashtable. The String's (cached) hash code is run through the
+     * MurmurHash3 finalizer so that sequential employeeIds spread over all the buckets,
+     * then masked to the table's power-of-two length.
      * @param employeeId employeeId of an Employee object
+     * @param tableLength The length of the table the index is computed for
      * @return a hashed value corresponding to
      *         a specific index in the hashtable
      */
-    private int hashFunction(String employeeId) {
-        return Integer.parseInt(employeeId) % size;
+    private int hashFunction(String employeeId, int tableLength) {
+        int hash = employeeId.hashCode();
+
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return hash & (tableLength - 1);
+    }
+
+    /**
+     * Returns the smallest power of two greater than or equal to the requested size
+     * @param sizeOfCollection The requested table size
+     * @return The capacity of the table
+     */
+    private static int tableSizeFor(int sizeOfCollection) {
+        int capacity = 1;
+
+        while(capacity < sizeOfCollection && capacity < MAX_CAPACITY)
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    /**
+     * Returns the table in which the given employeeId lives. While a rehash is in
+     * progress, keys whose old bucket has not been moved yet stay in the old table
+     * (including new insertions), so every key is always in exactly one chain.
+     * @param employeeId employeeId of an Employee object
+     * @return The table (current or old) to search or insert the employeeId into
+     */
+    private Node[] bucketsFor(String employeeId) {
+        if(oldTable != null && hashFunction(employeeId, oldTable.length) >= rehashIndex)
+            return oldTable;
+
+        return table;
+    }
+
+    /**
+     * Starts an incremental rehash into a table twice the size once the number of
+     * employees exceeds the maximum load factor. If a previous rehash is still in
+     * progress, it is finished first.
+     */
+    private void growIfNeeded() {
+        if(count <= maxLoadFactor * table.length || table.length == MAX_CAPACITY)
+            return;
+
+        while(oldTable != null)
+            rehashStep();
+
+        oldTable = table;
+        oldTableShared = tableShared;
+        table = new Node[table.length * 2];
+        tableShared = false;
+        rehashIndex = 0;
+    }
+
+    /**
+     * Moves up to REHASH_STEPS buckets of the old table into the current table.
+     * Does nothing if no rehash is in progress.
+     */
+    private void rehashStep() {
+        for(var step = 0; oldTable != null && step < REHASH_STEPS; step++) {
+            Node[] buckets = writable(table);
+            Node present = writable(oldTable)[rehashIndex];
+            oldTable[rehashIndex] = null;
+
+            while(present != null) {
+                Node next = present.next;
+                int hashValue = hashFunction(present.data.getEmployeeID(), buckets.length);
+
+                // Shared Nodes cannot be relinked, move a copy instead
+                if(present.owner != owner)
+                    present = new Node(present.data);
+
+                present.next = buckets[hashValue];
+                buckets[hashValue] = present;
+
+                present = next;
+            }
+
+            rehashIndex++;
+            if(rehashIndex == oldTable.length) {
+                oldTable = null;
+                rehashIndex = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes every employee of the hashtable to the given output, one per line and
+     * sorted by employeeId. The employees are sorted by reference in O(n log n) and
+     * written one at a time, so wrapping a Writer in a BufferedWriter bounds the
+     * memory used by the output to that buffer.
+     * @param out The destination of the employees (e.g. a Writer or a StringBuilder)
+     * @throws IOException if writing to the destination fails
+     */
+    public void writeSorted(Appendable out) throws IOException {
+        for(Employee emp : sortedEmployees()) {
+            out.append(String.valueOf(emp)).append('\n');
+        }
+    }
+
+    /**
+     * Writes every employee of the hashtable to a binary snapshot file that can be
+     * mapped back into memory with HumanResourcesSnapshot.open
+     * @param file The snapshot file, replaced atomically if it exists
+     * @throws IOException if the file cannot be written
+     * @throws NumberFormatException if an employeeId is not numeric
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        HumanResourcesSnapshot.write(sortedEmployees(), file);
+    }
+
+    /**
+     * Creates a hashtable holding every employee of a snapshot. The table is sized
+     * up front so that no rehash happens during the load. Until the load is done,
+     * the snapshot itself can serve findEmployee.
+     * @param snapshot The mapped snapshot
+     * @return A new hashtable holding the snapshot's employees
+     */
+    public static HumanResourcesHashing load(HumanResourcesSnapshot snapshot) {
+        HumanResourcesHashing loaded = new HumanResourcesHashing(
+                (int) Math.min(MAX_CAPACITY, snapshot.size() / DEFAULT_LOAD_FACTOR + 1));
+
+        for(var i = 0; i < snapshot.size(); i++) {
+            Employee emp = snapshot.employeeAt(i);
+            loaded.computeIfAbsent(emp.getEmployeeID(), employeeId -> emp);
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Records every later change of the hashtable in the given write-ahead log.
+     * Attach the log only after recovering, since replaying does not log again.
+     * Once the log has failed or is closed, every change throws before touching
+     * the hashtable, so that no change is made without being logged.
+     * @param log The log to append the changes to, or null to stop logging
+     */
+    public void attachLog(HumanResourcesLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Writes a new snapshot holding every change logged so far, then empties the
+     * attached log. The snapshot replaces the previous one atomically, and because
+     * log records are idempotent, a crash before the log is emptied is harmless.
+     * @param snapshotFile The snapshot file to replace
+     * @throws IOException if the log cannot be synced or the snapshot written
+     * @throws IllegalStateException if no log is attached
+     */
+    public void checkpoint(Path snapshotFile) throws IOException {
+        if(log == null)
+            throw new IllegalStateException("No log attached");
+
+        log.sync();
+        writeSnapshot(snapshotFile);
+        log.truncate();
+    }
+
+    /**
+     * Rebuilds a hashtable after a crash: loads the snapshot (if any), then replays
+     * every intact record of the log (if any) on top of it. A torn record at the end
+     * of the log, left by the crash, is cut off so that the log can be reopened for
+     * appending.
+     * @param snapshotFile The last snapshot written by writeSnapshot or checkpoint
+     * @param logFile The write-ahead log
+     * @return The recovered hashtable, with no log attached
+     * @throws IOException if the files cannot be read
+     */
+    public static HumanResourcesHashing recover(Path snapshotFile, Path logFile) throws IOException {
+        HumanResourcesHashing recovered = Files.exists(snapshotFile)
+                ? load(HumanResourcesSnapshot.open(snapshotFile))
+                : new HumanResourcesHashing();
+
+        long valid = HumanResourcesLog.replay(logFile, recovered);
+
+        if(Files.exists(logFile) && Files.size(logFile) > valid) {
+            try(FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+
+        return recovered;
     }
 
     /**
@@ -287,35 +1018,38 @@ public class HumanResourcesHashing {
      * @return a String representation of all the hashtable's elements
      */
     public String toString(){
-        int size = 0; // to count number of employees
-        Employee[] temp = new Employee[table.length]; // set up a temporary array of employees
-        Node present;
-
-        for ( int j = 0; j < table.length; j++ ){ // loop to access all employees and copy them to
-            // the temporary table
-            present = table[j];
-            while ( present!= null ){
-                temp[size] = new Employee ( present.data );
-                size++;
-                present = present.next;
-            }
-        }
+        StringBuilder out = new StringBuilder();
 
-        for ( int i = 0; i < size - 1; i++ )    // loop to sort the employees using the selection sort method
-            for ( int j = i+1; j < size; j++ )
-                if( temp[i].compareTo ( temp[j] ) > 0 ) {
-                    Employee tempEmp = temp[j] ;
-                    temp[j] = temp[i];
-                    temp[i] = tempEmp;
-                }
-        String out = "";
-        for ( int i = 0; i < size; i++ ) { // loop to setup the output string using toString of the
-            // employee class
-            out += temp[i] + "\n";
+        try {
+            writeSorted(out);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
         }
 
-        return out;
+        return out.toString();
     }
 
+    /**
+     * Returns the hashtable's employees sorted by employeeId. The array holds
+     * references to the stored employees, not copies.
+     * @return The employees sorted by employeeId
+     */
+    private Employee[] sortedEmployees() {
+        int size = 0; // to count number of employees
+        Employee[] sorted = new Employee[count];
+
+        for(Node[] buckets : new Node[][] { table, oldTable }) {
+            if(buckets == null)
+                continue;
 
+            for(var i = 0; i < buckets.length; i++) {
+                for(Node present = buckets[i]; present != null; present = present.next)
+                    sorted[size++] = present.data;
+            }
+        }
+
+        Arrays.sort(sorted);
+        return sorted;
+    }
 }
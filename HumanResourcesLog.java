@@ -0,0 +1,458 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead log of the changes made to a HumanResourcesHashing
+ * (see HumanResourcesHashing.attachLog). Appending a record only encodes it into
+ * an in-memory buffer; a background thread writes the buffer and forces it to disk
+ * at most once per commit interval, so that many records share a single fsync
+ * (group commit). A record is durable once the flush following it completes, or as
+ * soon as sync returns.
+ *
+ * Every record holds the resulting state of what it changes (e.g. the new salary
+ * rather than the adjustment), so replaying a log on top of a snapshot that already
+ * contains some of its records still produces the right state.
+ *
+ * Record layout: int payload length, int CRC32 of the payload, then the payload
+ * (a one byte operation followed by its fields). A torn or corrupted record ends
+ * the replay.
+ *
+ * @author Jonnie Quezada
+ * @version Java 10 SE
+ */
+public class HumanResourcesLog implements Closeable {
+    private final FileChannel channel;
+    private final Thread flusher;
+    private final long commitIntervalMillis;
+
+    // Guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended;  // number of records appended
+    private long durable;   // number of records forced to disk
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private static final byte ADD = 1;
+    private static final byte PUT = 2;
+    private static final byte DELETE = 3;
+    private static final byte DEPARTMENT = 4;
+    private static final byte SALARY = 5;
+
+    private static final int FLUSH_THRESHOLD = 1 << 20; // flush early past 1 MB of pending records
+
+    /*
+     * Upper bound of a payload's length: a record holds at most an employeeId, name
+     * and department of up to 64 KB each (the limit of writeUTF) and a salary. A
+     * larger length can only come from a torn or corrupted record.
+     */
+    private static final int MAX_RECORD_SIZE = 1 + 3 * (1 + 2 + 0xFFFF) + Double.BYTES;
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Opens (or creates) a log file for appending and starts its flusher thread
+     * @param file The log file
+     * @param commitIntervalMillis The longest time a record stays in memory
+     *                             before being forced to disk
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the commit interval is not positive
+     */
+    public HumanResourcesLog(Path file, long commitIntervalMillis) throws IOException {
+        if(commitIntervalMillis <= 0)
+            throw new IllegalArgumentException("Commit interval must be positive: " + commitIntervalMillis);
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.commitIntervalMillis = commitIntervalMillis;
+
+        flusher = new Thread(this::flushLoop, "HumanResourcesLog-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Logs the addition of an employee
+     * @param emp The Employee object added
+     */
+    public void logAdd(Employee emp) {
+        append(ADD, out -> writeEmployee(out, emp));
+    }
+
+    /**
+     * Logs that an employee was replaced by (or inserted as) the given one
+     * @param emp The Employee object now stored
+     */
+    public void logPut(Employee emp) {
+        append(PUT, out -> writeEmployee(out, emp));
+    }
+
+    /**
+     * Logs the deletion of an employee
+     * @param employeeId The Id of the deleted Employee
+     */
+    public void logDelete(String employeeId) {
+        append(DELETE, out -> out.writeUTF(employeeId));
+    }
+
+    /**
+     * Logs the change of an employee's department
+     * @param employeeId The Id of the Employee
+     * @param department The new department of the employee
+     */
+    public void logDepartment(String employeeId, String department) {
+        append(DEPARTMENT, out -> {
+            out.writeUTF(employeeId);
+            writeNullable(out, department);
+        });
+    }
+
+    /**
+     * Logs the change of an employee's salary
+     * @param employeeId The Id of the Employee
+     * @param salary The new salary of the employee (not the adjustment)
+     */
+    public void logSalary(String employeeId, double salary) {
+        append(SALARY, out -> {
+            out.writeUTF(employeeId);
+            out.writeDouble(salary);
+        });
+    }
+
+    /**
+     * Blocks until every record appended so far is forced to disk. Records appended
+     * by other threads in the meantime share the same fsync.
+     * @throws IOException if writing to the log failed
+     */
+    public synchronized void sync() throws IOException {
+        long target = appended;
+
+        syncRequested = true;
+        notifyAll();
+
+        try {
+            while(durable < target && failure == null && !closed)
+                wait();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the log to sync", e);
+        }
+
+        if(failure != null)
+            throw failure;
+        if(durable < target)
+            throw new IOException("Log closed before syncing");
+    }
+
+    /**
+     * Empties the log, once a snapshot holding all its changes has been written.
+     * Records appended concurrently with truncate may be lost, so the hashtable
+     * must not be modified until it returns.
+     * @throws IOException if the log cannot be synced or truncated
+     */
+    public void truncate() throws IOException {
+        sync();
+
+        synchronized(this) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces every pending record to disk, stops the flusher thread and closes the file
+     * @throws IOException if the final sync or the close fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        }
+        finally {
+            synchronized(this) {
+                closed = true;
+                notifyAll();
+            }
+
+            try {
+                flusher.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            channel.close();
+        }
+    }
+
+    /**
+     * Applies every intact record of a log file to the given hashtable, in order.
+     * The hashtable should not have a log attached while replaying.
+     * @param file The log file, which may not exist
+     * @param hr The hashtable to apply the records to
+     * @return The length in bytes of the intact prefix of the log; anything after
+     *         it is a torn or corrupted record
+     * @throws IOException if the file cannot be read
+     */
+    public static long replay(Path file, HumanResourcesHashing hr) throws IOException {
+        if(!Files.exists(file))
+            return 0;
+
+        long valid = 0;
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while(true) {
+                byte[] payload;
+
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+
+                    if(length <= 0 || length > MAX_RECORD_SIZE)
+                        break;
+
+                    payload = new byte[length];
+                    in.readFully(payload);
+
+                    if(checksum != checksum(payload))
+                        break;
+                }
+                catch(EOFException e) {
+                    break;
+                }
+
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), hr);
+                valid += 2 * Integer.BYTES + payload.length;
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * Throws if records can no longer be appended. HumanResourcesHashing calls it
+     * before each change, so that a change the log cannot record is not made either.
+     * @throws UncheckedIOException if a previous flush failed
+     * @throws IllegalStateException if the log is closed
+     */
+    synchronized void checkWritable() {
+        if(failure != null)
+            throw new UncheckedIOException(failure);
+        if(closed)
+            throw new IllegalStateException("Log is closed");
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Writes the fields of a record's payload
+     */
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Frames a record and adds it to the pending buffer
+     * @param operation The record's operation
+     * @param fields Writes the record's fields
+     * @throws UncheckedIOException if a previous flush failed
+     * @throws IllegalStateException if the log is closed
+     */
+    private void append(byte operation, RecordWriter fields) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+
+        try(DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(operation);
+            fields.write(out);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream never throws
+        }
+
+        byte[] bytes = payload.toByteArray();
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES)
+                .putInt(bytes.length)
+                .putInt(checksum(bytes));
+
+        synchronized(this) {
+            checkWritable();
+
+            pending.write(header.array(), 0, header.capacity());
+            pending.write(bytes, 0, bytes.length);
+            appended++;
+
+            if(pending.size() >= FLUSH_THRESHOLD)
+                notifyAll();
+        }
+    }
+
+    /**
+     * Body of the flusher thread: every commit interval (or sooner when a sync is
+     * requested or the buffer is large), swaps the pending buffer for an empty one,
+     * then writes and forces the batch outside the lock.
+     */
+    private void flushLoop() {
+        while(true) {
+            byte[] batch;
+            long batchEnd;
+
+            synchronized(this) {
+                try {
+                    if(!closed && !syncRequested && pending.size() < FLUSH_THRESHOLD)
+                        wait(commitIntervalMillis);
+                }
+                catch(InterruptedException e) {
+                    closed = true;
+                }
+
+                if(pending.size() == 0) {
+                    syncRequested = false;
+                    if(closed)
+                        return;
+                    continue;
+                }
+
+                batch = pending.toByteArray();
+                batchEnd = appended;
+                pending = new ByteArrayOutputStream();
+                syncRequested = false;
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(false);
+
+                synchronized(this) {
+                    durable = batchEnd;
+                    notifyAll();
+                }
+            }
+            catch(IOException e) {
+                synchronized(this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decodes a record's payload and applies it to the hashtable
+     * @param in The payload
+     * @param hr The hashtable to apply the record to
+     * @throws IOException if the payload is malformed
+     */
+    private static void apply(DataInputStream in, HumanResourcesHashing hr) throws IOException {
+        byte operation = in.readByte();
+
+        switch(operation) {
+            case ADD:
+                hr.addEmployee(readEmployee(in));
+                break;
+            case PUT:
+                hr.merge(readEmployee(in), (stored, emp) -> emp);
+                break;
+            case DELETE:
+                hr.deleteEmployee(in.readUTF());
+                break;
+            case DEPARTMENT:
+                hr.changeDepartment(in.readUTF(), readNullable(in));
+                break;
+            case SALARY:
+                hr.setSalary(in.readUTF(), in.readDouble());
+                break;
+            default:
+                throw new IOException("Unknown log operation: " + operation);
+        }
+    }
+
+    /**
+     * Writes every field of an employee
+     * @param out The record's payload
+     * @param emp The Employee object to write
+     * @throws IOException if writing fails
+     */
+    private static void writeEmployee(DataOutputStream out, Employee emp) throws IOException {
+        out.writeUTF(emp.getEmployeeID());
+        writeNullable(out, emp.getName());
+        writeNullable(out, emp.getDepartment());
+        out.writeDouble(emp.getSalary());
+    }
+
+    /**
+     * Reads an employee written by writeEmployee
+     * @param in The record's payload
+     * @return A new Employee object
+     * @throws IOException if the payload is malformed
+     */
+    private static Employee readEmployee(DataInputStream in) throws IOException {
+        return new Employee(in.readUTF(), readNullable(in), readNullable(in), in.readDouble());
+    }
+
+    /**
+     * Writes a String that may be null
+     * @param out The record's payload
+     * @param value The String to write
+     * @throws IOException if writing fails
+     */
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null)
+            out.writeUTF(value);
+    }
+
+    /**
+     * Reads a String written by writeNullable
+     * @param in The record's payload
+     * @return The String read, may be null
+     * @throws IOException if the payload is malformed
+     */
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Returns the CRC32 of a record's payload
+     * @param payload The record's payload
+     * @return The checksum of the payload
+     */
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
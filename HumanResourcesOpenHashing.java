@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * Data Structure for storing Employee objects using an open-addressing hashtable.
+ * It offers the same operations as HumanResourcesHashing but, instead of chaining
+ * Nodes, the numeric employeeIds are stored in a flat array of primitive keys and the
+ * Employee objects sit at the same index of a parallel array. Collisions are resolved
+ * with linear probing, and deletions shift the following entries back so that no
+ * tombstones are needed.
+ *
+ * Only numeric employeeIds are supported.
+ *
+ * @author Jonnie Quezada
+ * @version Java 10 SE
+ */
+public class HumanResourcesOpenHashing {
+    private long keys[];
+    private Employee values[];
+
+    private int count;
+    private double maxLoadFactor;
+
+    private static final long EMPTY = -1; // employeeIds are never negative
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * No-arg constructor to set the default table size (512)
+     */
+    public HumanResourcesOpenHashing() {
+        this(512);
+    }
+
+    /**
+     * Constructor to set the table's size to the specified amount, rounded up
+     * to the next power of two
+     * @param sizeOfCollection The table's initial size
+     */
+    public HumanResourcesOpenHashing(int sizeOfCollection) {
+        this(sizeOfCollection, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor to set the table's initial size and the load factor above which
+     * the table grows
+     * @param sizeOfCollection The table's initial size, rounded up to the next power of two
+     * @param maxLoadFactor The maximum ratio of employees to slots before the
+     *                      table is doubled, must be less than 1
+     * @throws IllegalArgumentException if the size is not positive or the load factor
+     *                                  is not between 0 and 1 (exclusive)
+     */
+    public HumanResourcesOpenHashing(int sizeOfCollection, double maxLoadFactor) {
+        if(sizeOfCollection <= 0)
+            throw new IllegalArgumentException("Table size must be positive: " + sizeOfCollection);
+        if(!(maxLoadFactor > 0 && maxLoadFactor < 1))
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + maxLoadFactor);
+
+        int capacity = 1;
+        while(capacity < sizeOfCollection && capacity < MAX_CAPACITY)
+            capacity <<= 1;
+
+        keys = new long[capacity];
+        values = new Employee[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        count = 0;
+        this.maxLoadFactor = maxLoadFactor;
+    }
+
+    /**
+     * Copy constructor to copy all the elements of the parameter hashtable
+     * to this hashtable
+     * @param other The Hashtable to copy
+     */
+    public HumanResourcesOpenHashing(HumanResourcesOpenHashing other) {
+        keys = other.keys.clone();
+        values = new Employee[other.values.length];
+
+        for(var i = 0; i < values.length; i++) {
+            if(other.values[i] != null)
+                values[i] = new Employee(other.values[i]);
+        }
+
+        count = other.count;
+        maxLoadFactor = other.maxLoadFactor;
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Adds an employee to the Hashtable
+     *
+     * @param emp The Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     * @throws NumberFormatException if the employeeId is not numeric
+     */
+    public boolean addEmployee(Employee emp) {
+        long key = keyOf(emp.getEmployeeID());
+        int slot = search(key);
+
+        if(keys[slot] == key)
+            return FAIL;
+
+        keys[slot] = key;
+        values[slot] = new Employee(emp);
+        count++;
+
+        if(count > maxLoadFactor * keys.length && keys.length < MAX_CAPACITY)
+            resize(keys.length * 2);
+
+        return SUCCESS;
+    }
+
+    /**
+     * Delete the employee with the given employeeId from the Hashtable
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String employeeId) {
+        long key = keyOf(employeeId);
+        int slot = search(key);
+
+        if(keys[slot] != key)
+            return FAIL;
+
+        removeAt(slot);
+        count--;
+
+        return SUCCESS;
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeId The employee the change will apply to
+     * @param department The new department of the employee
+     * @return true if change is successful, false otherwise
+     */
+    public boolean changeDepartment(String employeeId, String department) {
+        Employee emp = findEmployee(employeeId);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setDepartment(department);
+        return SUCCESS;
+    }
+
+    /**
+     * Increment or decrement a specific employee's salary
+     *
+     * @param employeeId The employee the change will apply to
+     * @param adjustValue The amount by which the employee's salary
+     *               will be incremented (positive value) or
+     *               decremented (negative value)
+     * @return true if the change was successful, false otherwise
+     */
+    public boolean adjustSalary(String employeeId, int adjustValue) {
+        Employee emp = findEmployee(employeeId);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setSalary(emp.getSalary() + adjustValue);
+        return SUCCESS;
+    }
+
+    /**
+     * Returns the employee object who's employeeId matches the parameter
+     * @param employeeId The Id of the Employee you wish to find
+     * @return The Employee object corresponding to the parameter String employeeID
+     */
+    public Employee findEmployee(String employeeId) {
+        long key = keyOf(employeeId);
+        int slot = search(key);
+
+        return (keys[slot] == key) ? values[slot] : null;
+    }
+
+    /**
+     * Returns the number of employees in the Hashtable
+     * @return The number of employees in the Hashtable
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns a String representation of all the hashtable's elements,
+     * sorted by employeeId
+     * @return a String representation of all the hashtable's elements
+     */
+    public String toString() {
+        long[] sorted = new long[count];
+        int size = 0;
+
+        for(var i = 0; i < keys.length; i++) {
+            if(keys[i] != EMPTY)
+                sorted[size++] = keys[i];
+        }
+
+        Arrays.sort(sorted);
+
+        StringBuilder out = new StringBuilder();
+        for(var key : sorted)
+            out.append(values[search(key)]).append("\n");
+
+        return out.toString();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Probes the table from the key's home slot until either the key or an
+     * empty slot is found
+     * @param key The numeric employeeId to look for
+     * @return The slot holding the key, or the empty slot where it would be inserted
+     */
+    private int search(long key) {
+        int mask = keys.length - 1;
+        int slot = hashFunction(key, mask);
+
+        while(keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    /**
+     * Empties the given slot and shifts back the entries of the same probe run
+     * that would otherwise become unreachable (backward-shift deletion)
+     * @param slot The slot of the entry to remove
+     */
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int present = (slot + 1) & mask;
+
+        while(keys[present] != EMPTY) {
+            int home = hashFunction(keys[present], mask);
+
+            // Move the entry into the hole unless its home lies cyclically in (hole, present]
+            if(((present - home) & mask) >= ((present - hole) & mask)) {
+                keys[hole] = keys[present];
+                values[hole] = values[present];
+                hole = present;
+            }
+
+            present = (present + 1) & mask;
+        }
+
+        keys[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    /**
+     * Re-inserts every entry into new arrays of the given capacity
+     * @param capacity The new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Employee[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new Employee[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        for(var i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY)
+                continue;
+
+            int slot = search(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Converts an employeeId to the primitive key stored in the table
+     * @param employeeId employeeId of an Employee object
+     * @return The numeric value of the employeeId
+     * @throws NumberFormatException if the employeeId is not a non-negative number
+     */
+    private static long keyOf(String employeeId) {
+        long key = Long.parseLong(employeeId);
+
+        if(key < 0)
+            throw new NumberFormatException("Negative employeeId: " + employeeId);
+
+        return key;
+    }
+
+    /**
+     * Hashing algorithm that takes a numeric employeeId and returns the home slot
+     * of the key in the table, using the MurmurHash3 64-bit finalizer so that
+     * sequential employeeIds do not form long probe runs
+     * @param key The numeric employeeId
+     * @param mask The table's length minus one
+     * @return The home slot of the key
+     */
+    private static int hashFunction(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+
+        return (int) key & mask;
+    }
+}
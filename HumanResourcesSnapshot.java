@@ -0,0 +1,233 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A read-only, memory-mapped snapshot of a HumanResourcesHashing written by
+ * HumanResourcesHashing.writeSnapshot. Opening a snapshot only maps the file, so
+ * findEmployee can be served right after a restart; an Employee object is only
+ * materialized from the file when it is looked up. HumanResourcesHashing.load
+ * turns a snapshot back into a mutable hashtable.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   header   int magic, int version, int count, int reserved, long indexOffset
+ *   records  per employee: double salary, then employeeId, name and department,
+ *            each as an int byte length (-1 for null) followed by UTF-8 bytes
+ *   index    per employee, sorted by numeric employeeId: long key, long recordOffset
+ * </pre>
+ * Lookups binary search the fixed-width index and then decode a single record.
+ * Only numeric employeeIds are supported, and a snapshot is limited to 2 GB
+ * (the size of a single MappedByteBuffer).
+ *
+ * @author Jonnie Quezada
+ * @version Java 10 SE
+ */
+public class HumanResourcesSnapshot {
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+
+    private static final int MAGIC = 0x48525331; // "HRS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    /**
+     * Private constructor, use open to map a snapshot file
+     * @param buffer The mapped file
+     * @param count The number of employees in the snapshot
+     * @param indexOffset The position of the index in the file
+     */
+    private HumanResourcesSnapshot(MappedByteBuffer buffer, int count, int indexOffset) {
+        this.buffer = buffer;
+        this.count = count;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * Maps a snapshot file into memory. Nothing but the header is read.
+     * @param file The snapshot file
+     * @return The mapped snapshot
+     * @throws IOException if the file cannot be mapped or is not a valid snapshot
+     */
+    public static HumanResourcesSnapshot open(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not an employee snapshot: " + file);
+            if(buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ": " + file);
+
+            int count = buffer.getInt(8);
+            long indexOffset = buffer.getLong(16);
+
+            if(count < 0 || indexOffset < HEADER_SIZE
+                    || indexOffset + (long) count * INDEX_ENTRY_SIZE != buffer.limit())
+                throw new IOException("Corrupted snapshot: " + file);
+
+            return new HumanResourcesSnapshot(buffer, count, (int) indexOffset);
+        }
+    }
+
+    /**
+     * Returns a new Employee object materialized from the snapshot. Changing it
+     * does not change the snapshot.
+     * @param employeeId The Id of the Employee you wish to find
+     * @return The Employee object corresponding to the employeeId, null if it is not
+     *         in the snapshot or is not numeric
+     */
+    public Employee findEmployee(String employeeId) {
+        long key;
+
+        try {
+            key = Long.parseLong(employeeId);
+        }
+        catch(NumberFormatException e) {
+            return null;
+        }
+
+        int low = 0;
+        int high = count - 1;
+
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = buffer.getLong(indexOffset + middle * INDEX_ENTRY_SIZE);
+
+            if(middleKey < key)
+                low = middle + 1;
+            else if(middleKey > key)
+                high = middle - 1;
+            else
+                return employeeAt(middle);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of employees in the snapshot
+     * @return The number of employees in the snapshot
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Materializes the employee at the given position of the index
+     * @param position The position in the index, from 0 to size() - 1
+     * @return A new Employee object read from the snapshot
+     */
+    Employee employeeAt(int position) {
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) buffer.getLong(indexOffset + position * INDEX_ENTRY_SIZE + 8));
+
+        double salary = record.getDouble();
+        String employeeId = readString(record);
+        String name = readString(record);
+        String department = readString(record);
+
+        return new Employee(employeeId, name, department, salary);
+    }
+
+    /**
+     * Writes the given employees to a snapshot file, replacing it atomically if it
+     * exists: the snapshot is written and synced to a temporary file next to it,
+     * which is then moved over the file, so a crash leaves either the previous or
+     * the new snapshot. Mainly called by HumanResourcesHashing.writeSnapshot.
+     * @param employees The employees to write, in any order
+     * @param file The snapshot file
+     * @throws IOException if the file cannot be written
+     * @throws NumberFormatException if an employeeId is not numeric
+     */
+    static void write(Employee[] employees, Path file) throws IOException {
+        Employee[] sorted = employees.clone();
+        Arrays.sort(sorted, Comparator.comparingLong(emp -> Long.parseLong(emp.getEmployeeID())));
+
+        long[] recordOffsets = new long[sorted.length];
+        long position = HEADER_SIZE;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.length);
+            out.writeInt(0);
+            out.writeLong(0); // index offset, patched once the records are written
+
+            for(var i = 0; i < sorted.length; i++) {
+                recordOffsets[i] = position;
+
+                out.writeDouble(sorted[i].getSalary());
+                position += Double.BYTES;
+                position += writeString(out, sorted[i].getEmployeeID());
+                position += writeString(out, sorted[i].getName());
+                position += writeString(out, sorted[i].getDepartment());
+            }
+
+            for(var i = 0; i < sorted.length; i++) {
+                out.writeLong(Long.parseLong(sorted[i].getEmployeeID()));
+                out.writeLong(recordOffsets[i]);
+            }
+        }
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer indexOffset = ByteBuffer.allocate(Long.BYTES).putLong(0, position);
+            channel.write(indexOffset, 16);
+            channel.force(true);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a String as its UTF-8 byte length followed by its bytes
+     * @param out The destination
+     * @param value The String to write, may be null
+     * @return The number of bytes written
+     * @throws IOException if writing fails
+     */
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+            return Integer.BYTES;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+
+        return Integer.BYTES + bytes.length;
+    }
+
+    /**
+     * Reads a String written by writeString
+     * @param record The buffer positioned at the String
+     * @return The String read, may be null
+     */
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+
+        if(length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,18 +1,65 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * A Binary Tree data structure to store Employee objects sorted chronologically by employeeID
  *
+ * In balanced mode the tree is kept AVL-balanced: after every insertion or deletion,
+ * the nodes on the path back to the root are rotated as needed so that the depth
+ * stays O(log n) whatever the order of insertion.
+ *
+ * The tree implements Iterable: its employees can be iterated or streamed lazily in
+ * employeeID order. Traversals are iterative, using an explicit stack bounded by the
+ * depth of the tree, so that even a degenerate tree cannot overflow the call stack.
+ *
+ * Every node also keeps the number of employees and the total salary of its subtree,
+ * so that rank, select and salaryTotal run in O(depth) instead of a full traversal.
+ * Analytics that do need every employee (see aggregate) are split at subtrees and
+ * run in parallel on the common ForkJoinPool.
+ *
+ * Copying a tree costs O(1): the copy shares every node with the original, and
+ * each side copies the nodes on the path to what it modifies the first time it
+ * modifies them (path copying). Employee objects returned by the tree may be
+ * shared with its copies, so they should only be changed through changeDepartment
+ * and adjustSalary.
+ *
  * Assignment: 4
  *
  * @author Jonnie Quezada
  *
  */
-public class HumanResourcesTree {
+public class HumanResourcesTree implements Iterable<Employee> {
     private Node root;
 
+    private final boolean balanced;
+    private long rotations;
+
+    /*
+     * Copy-on-write state. A Node may only be modified by the tree whose owner
+     * token it carries; every other Node may be shared with a copy. Since shared
+     * Nodes are only replaced from the root downwards, the descendants of a shared
+     * Node are shared too.
+     */
+    private Object owner = new Object();
+
+    private static final int SEQUENTIAL_THRESHOLD = 4096; // subtrees smaller than this are not split
+
     private final boolean SUCCESS = true;
     private final boolean FAIL = false;
 
@@ -32,6 +79,12 @@ public class HumanResourcesTree {
         Node right;
         Node left;
 
+        int height = 1; // height of the subtree rooted at this node
+        int size = 1; // number of employees in the subtree rooted at this node
+        double salarySum; // total salary of the subtree rooted at this node
+
+        final Object owner = HumanResourcesTree.this.owner;
+
         /**
          * No-arg constructor to set the Node's fields to null
          */
@@ -47,10 +100,25 @@ public class HumanResourcesTree {
          */
         public Node(Employee data){
             this.data = new Employee(data);
+            salarySum = data.getSalary();
             left = null;
             right = null;
         }
 
+        /**
+         * Copy constructor to make an owned copy of a shared node, including a copy
+         * of its Employee; the children stay shared
+         * @param other The node to copy
+         */
+        public Node(Node other){
+            this(other.data);
+            left = other.left;
+            right = other.right;
+            height = other.height;
+            size = other.size;
+            salarySum = other.salarySum;
+        }
+
     }
     /*
      *********************************************************
@@ -62,7 +130,7 @@ public class HumanResourcesTree {
      */
 
     public static void main(String[] args) throws IOException {
-        HumanResourcesTree tree = new HumanResourcesTree();
+        List<Employee> employees = new ArrayList<>();
 
         String fileName = "/Users/jonniequezada/IdeaProjects/Tree/src/Employee.txt";
 
@@ -76,7 +144,7 @@ public class HumanResourcesTree {
         while((line = bufferedReader.readLine()) != null) {
             String[] tokens = line.split("\\s+");
 
-            tree.addEmployee(
+            employees.add(
                     new Employee(tokens[0],
                             tokens[2] + " " + tokens[1],
                             tokens[3],
@@ -86,6 +154,8 @@ public class HumanResourcesTree {
 
         bufferedReader.close();
 
+        HumanResourcesTree tree = new HumanResourcesTree(employees, true);
+
         System.out.println(tree);
 
         HumanResourcesTree copyTree = new HumanResourcesTree(tree);
@@ -102,25 +172,77 @@ public class HumanResourcesTree {
      *********************************************************
      */
     /**
-     * No-arg constructor to set the LinkedList's field, head, to null
+     * No-arg constructor to set the Tree's field, root, to null. The tree
+     * is not balanced.
      */
     public HumanResourcesTree() {
+        this(false);
+    }
+
+    /**
+     * Constructor to create an empty tree, balanced or not
+     * @param balanced true to keep the tree AVL-balanced
+     */
+    public HumanResourcesTree(boolean balanced) {
         root = null;
+        this.balanced = balanced;
+    }
+
+    /**
+     * Bulk-load constructor building a perfectly balanced tree from the given
+     * employees in O(n) after sorting them. The array is only sorted (on a copy)
+     * if it is not already in employeeID order; for duplicate employeeIDs, the
+     * first occurrence is kept, as addEmployee would.
+     * @param employees The employees to store, in any order
+     * @param balanced true to keep the tree AVL-balanced after the load
+     */
+    public HumanResourcesTree(Employee[] employees, boolean balanced) {
+        this.balanced = balanced;
+
+        Employee[] sorted = employees;
+
+        for(var i = 1; i < employees.length; i++) {
+            if(employees[i - 1].compareTo(employees[i]) >= 0) {
+                sorted = employees.clone();
+                Arrays.sort(sorted); // stable, so the first of equal employees stays first
+                break;
+            }
+        }
+
+        int unique = 0;
+        Employee[] distinct = new Employee[sorted.length];
+
+        for(var i = 0; i < sorted.length; i++) {
+            if(unique == 0 || distinct[unique - 1].compareTo(sorted[i]) != 0)
+                distinct[unique++] = sorted[i];
+        }
+
+        root = build(distinct, 0, unique - 1);
     }
 
     /**
-     * Copy constructor to copy all the elements of the parameter LinkedList object
-     * to this list
+     * Bulk-load constructor building a perfectly balanced tree from the employees of
+     * a collection, or of a stream through stream::iterator. The employees are
+     * collected into an array, then loaded as by the array constructor.
+     * @param employees The employees to store, in any order
+     * @param balanced true to keep the tree AVL-balanced after the load
+     */
+    public HumanResourcesTree(Iterable<Employee> employees, boolean balanced) {
+        this(toArray(employees), balanced);
+    }
+
+    /**
+     * Copy constructor to copy all the elements of the parameter Tree to this
+     * tree in O(1). The copy is lazy: both trees share the same nodes, and a node
+     * is only copied by the side that first modifies it.
      * @param tree The Tree to copy
      */
     public HumanResourcesTree (HumanResourcesTree tree){
-        if (tree.root == null)
-            root = null;
-        else
-        {
-            root = new Node();
-            copy(root, tree.root);
-        }
+        balanced = tree.balanced;
+        root = tree.root;
+
+        // Neither side owns any of the existing nodes anymore
+        tree.owner = new Object();
     }
 
     /*
@@ -137,28 +259,37 @@ public class HumanResourcesTree {
      * @return true for successful insertion, false for failed insertion
      */
     public boolean addEmployee(Employee emp){
-        Node add = new Node(emp);
-        Node parent = searchParent(emp);
-        Node present = searchPresent(parent, emp);
+        Stack<Node> path = new Stack<>();
+        Node present = root;
 
-        if (isEmpty()){
-            root = add;
-        }
-        else {
-            if(present != null){
+        while(present != null){
+            int compare = present.data.compareTo(emp);
+
+            if(compare == 0){
                 return FAIL;
             }
 
-            if(parent.data.compareTo(add.data) < 0 ){
-                parent.right = add;
+            path.push(present);
+            present = (compare > 0) ? present.left : present.right;
+        }
 
-            }
-            else{
-                parent.left = add;
+        path = ownPath(path);
 
-            }
+        Node add = new Node(emp);
+        Node parent = path.lookUp();
+
+        if (parent == null){
+            root = add;
+        }
+        else if(parent.data.compareTo(add.data) < 0 ){
+            parent.right = add;
+        }
+        else{
+            parent.left = add;
         }
 
+        retrace(path);
+
         return SUCCESS;
     }
 
@@ -167,84 +298,38 @@ public class HumanResourcesTree {
      * @return true for successful deletion, false for failed deletion
      */
     public boolean deleteEmployee(String employeeId){
-        Employee emp = new Employee(employeeId);
-        Node parent = searchParent(emp);
-        Node present =  searchPresent(parent,emp);
-
-        if(present == null){
-            return false;
-        }
+        Stack<Node> path = searchOwnedPath(new Employee(employeeId));
 
-        //If node to delete is a leaf (Case 1)
-        if(present.right == null && present.left == null){
-
-            if(parent == null){
-                root = null;
-                return true;
-            }
-
-            else if(present.data.compareTo(parent.data) > 0){
-                parent.right = null;
-            }
-            else {
-                present.left = null;
-            }
-        }
-
-        //If node to delete has a right but not a left (Case 2)
-        else if(present.left == null && present.right != null){
-
-            if(parent == null){
-                root = present.right;
-            }
-
-            else{
-
-                if(present.data.compareTo(parent.data) > 0){
-
-                    parent.right = present.right;
-                }
-                else{
-
-                    parent.left = present.left;
-                }
-
-            }
+        if(path == null){
+            return FAIL;
         }
 
-        //If node to delete have a left and it doesn't have a right (Case 3)
-        else if(present.left != null && present.left.right == null){
+        Node present = path.pop();
 
-            if(parent == null){
-                root = present.left;
-            }
-            else
-            {
-                if(present.data.compareTo(parent.data) < 0){
-
-                    parent.left = present.left;
-                }
-                else{
-                    parent.right = present.right;
-                }
-            }
-            present.left.right = present.right;
+        //If node to delete has at most one child, replace it by that child
+        if(present.left == null || present.right == null){
+            replaceChild(path.lookUp(), present, (present.left != null) ? present.left : present.right);
         }
+        //Otherwise, replace its data by its predecessor's and delete the predecessor
         else
         {
-            Node tempParent = present.left;
-            Node tempPresent = tempParent.right;
+            path.push(present);
+
+            Node tempParent = present;
+            Node tempPresent = own(present, present.left);
 
             while(tempPresent.right != null){
+                path.push(tempPresent);
                 tempParent = tempPresent;
-                tempPresent = tempPresent.right;
+                tempPresent = own(tempPresent, tempPresent.right);
             }
 
             present.data = tempPresent.data;
-
-            tempParent.right = tempPresent.left;
+            replaceChild(tempParent, tempPresent, tempPresent.left);
         }
 
+        retrace(path);
+
         return SUCCESS;
     }
 
@@ -255,12 +340,12 @@ public class HumanResourcesTree {
      * @return Boolean indicating if the change was successful
      */
     public boolean changeDepartment(String employeeId, String department){
-        Employee emp = findEmployee(employeeId);
+        Stack<Node> path = searchOwnedPath(new Employee(employeeId));
 
-        if(emp == null)
+        if(path == null)
             return FAIL;
 
-        emp.setDepartment(department);
+        path.lookUp().data.setDepartment(department);
 
         return SUCCESS;
     }
@@ -275,18 +360,24 @@ public class HumanResourcesTree {
      * @return Boolean indicating if the change was successful
      */
     public boolean adjustSalary(String employeeId, double salary) {
-        Employee emp = findEmployee(employeeId);
+        Stack<Node> path = searchOwnedPath(new Employee(employeeId));
 
-        if(emp == null)
+        if(path == null)
             return FAIL;
 
-        emp.setSalary(salary + emp.getSalary());
+        Node present = path.lookUp();
+        present.data.setSalary(salary + present.data.getSalary());
+
+        // Refresh the salary totals from the employee up to the root
+        retrace(path);
 
         return SUCCESS;
     }
 
     /**
-     * Returns the employee object who's employeeId matches the parameter
+     * Returns the employee object who's employeeId matches the parameter. The
+     * Employee may be shared with copies of this tree, so it should not be
+     * modified directly; use changeDepartment and adjustSalary instead.
      * @param employeeId The Id of the Employee you wish to find
      * @return The Employee object corresponding to the parameter String employeeID
      */
@@ -310,13 +401,326 @@ public class HumanResourcesTree {
         return root == null;
     }
 
+    /**
+     * Returns the number of employees in the tree
+     * @return The number of employees in the tree
+     */
+    public int size(){
+        return size(root);
+    }
+
+    /**
+     * Returns the number of employees whose employeeID is less than the given one
+     * @param employeeId The employeeID to rank, which need not be in the tree
+     * @return The number of employees before employeeId
+     */
+    public int rank(String employeeId){
+        Employee find = new Employee(employeeId);
+        Node present = root;
+        int rank = 0;
+
+        while(present != null){
+            if(present.data.compareTo(find) < 0){
+                rank += size(present.left) + 1;
+                present = present.right;
+            }
+            else
+                present = present.left;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Returns the k-th employee in employeeID order
+     * @param k The position of the employee, from 0 to size() - 1
+     * @return The Employee at position k
+     * @throws IndexOutOfBoundsException if k is not a valid position
+     */
+    public Employee select(int k){
+        if(k < 0 || k >= size())
+            throw new IndexOutOfBoundsException("Position " + k + " out of " + size());
+
+        Node present = root;
+
+        while(true){
+            int leftSize = size(present.left);
+
+            if(k < leftSize)
+                present = present.left;
+            else if(k > leftSize){
+                k -= leftSize + 1;
+                present = present.right;
+            }
+            else
+                return present.data;
+        }
+    }
+
+    /**
+     * Returns the total salary of the employees whose employeeID is within the
+     * given range (both ends included). The salaries must only be changed through
+     * adjustSalary for the totals to stay accurate.
+     * @param fromId The lowest employeeID of the range, null for no lower bound
+     * @param toId The highest employeeID of the range, null for no upper bound
+     * @return The total salary of the employees within the range
+     */
+    public double salaryTotal(String fromId, String toId){
+        Employee from = (fromId == null) ? null : new Employee(fromId);
+        Employee to = (toId == null) ? null : new Employee(toId);
+
+        if(from != null && to != null && from.compareTo(to) > 0)
+            return 0;
+
+        Node present = root;
+
+        // Descend to the highest node within the range, where the paths to both bounds split
+        while(present != null){
+            if(from != null && present.data.compareTo(from) < 0)
+                present = present.right;
+            else if(to != null && present.data.compareTo(to) > 0)
+                present = present.left;
+            else
+                break;
+        }
+
+        if(present == null)
+            return 0;
+
+        return salaryFrom(present.left, from) + present.data.getSalary() + salaryUpTo(present.right, to);
+    }
+
+    /**
+     * Returns the depth of the tree, that is the number of nodes on its longest
+     * path from the root to a leaf (0 if the tree is empty)
+     * @return The depth of the tree
+     */
+    public int depth(){
+        return height(root);
+    }
+
+    /**
+     * Returns the number of rotations done to keep the tree balanced since it
+     * was created (always 0 if the tree is not balanced)
+     * @return The number of rotations done
+     */
+    public long rotationCount(){
+        return rotations;
+    }
+
+    /**
+     * Returns whether this tree is kept AVL-balanced
+     * @return true if the tree is balanced, false otherwise
+     */
+    public boolean isBalanced(){
+        return balanced;
+    }
+
     /**
      * Returns a string representation of all the tree's elements
      *
      * @return A String containing all the data for each main.Employee object in the list
      */
     public String toString() {
-        return toString(root);
+        StringBuilder out = new StringBuilder();
+
+        for(Employee emp : this)
+            out.append(emp);
+
+        return out.toString();
+    }
+
+    /**
+     * Returns an iterator over the tree's employees in employeeID order. The
+     * iterator walks the tree lazily, keeping only the path to the next node.
+     * The tree must not be modified while it is being iterated.
+     * @return An in-order Iterator over the tree's employees
+     */
+    @Override
+    public Iterator<Employee> iterator() {
+        return rangeIterator(null, true, null, true);
+    }
+
+    /**
+     * Returns the employee with the greatest employeeID less than or equal to the given one
+     * @param employeeId The employeeID to look for
+     * @return The Employee found, null if every employeeID is greater
+     */
+    public Employee floor(String employeeId){
+        Employee find = new Employee(employeeId);
+        Node present = root;
+        Node candidate = null;
+
+        while(present != null){
+            int compare = present.data.compareTo(find);
+
+            if(compare == 0)
+                return present.data;
+
+            if(compare < 0){
+                candidate = present;
+                present = present.right;
+            }
+            else
+                present = present.left;
+        }
+
+        return (candidate == null) ? null : candidate.data;
+    }
+
+    /**
+     * Returns the employee with the smallest employeeID greater than or equal to the given one
+     * @param employeeId The employeeID to look for
+     * @return The Employee found, null if every employeeID is smaller
+     */
+    public Employee ceiling(String employeeId){
+        Employee find = new Employee(employeeId);
+        Node present = root;
+        Node candidate = null;
+
+        while(present != null){
+            int compare = present.data.compareTo(find);
+
+            if(compare == 0)
+                return present.data;
+
+            if(compare > 0){
+                candidate = present;
+                present = present.left;
+            }
+            else
+                present = present.right;
+        }
+
+        return (candidate == null) ? null : candidate.data;
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is within the given range
+     * (both ends included), in employeeID order. Iterating the view only visits the
+     * O(log n + k) nodes leading to and within the range.
+     * @param fromId The lowest employeeID of the range, null for no lower bound
+     * @param toId The highest employeeID of the range, null for no upper bound
+     * @return A view of the employees within the range
+     */
+    public Iterable<Employee> rangeScan(String fromId, String toId){
+        Employee from = (fromId == null) ? null : new Employee(fromId);
+        Employee to = (toId == null) ? null : new Employee(toId);
+
+        return () -> rangeIterator(from, true, to, true);
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is strictly less than the
+     * given one, in employeeID order
+     * @param toId The upper bound (excluded)
+     * @return A view of the employees before toId
+     */
+    public Iterable<Employee> headMap(String toId){
+        Employee to = new Employee(toId);
+
+        return () -> rangeIterator(null, true, to, false);
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is greater than or equal to
+     * the given one, in employeeID order
+     * @param fromId The lower bound (included)
+     * @return A view of the employees from fromId onwards
+     */
+    public Iterable<Employee> tailMap(String fromId){
+        Employee from = new Employee(fromId);
+
+        return () -> rangeIterator(from, true, null, true);
+    }
+
+    /**
+     * Returns a Spliterator over the tree's employees in employeeID order. It walks
+     * the tree lazily like the iterator, and splits by handing off a left subtree
+     * and its root, so that splitting copies no employees and every part knows its
+     * exact size. The tree must not be modified while it is being traversed.
+     * @return A sorted, distinct, ordered and sized Spliterator over the tree's employees
+     */
+    @Override
+    public Spliterator<Employee> spliterator() {
+        return new InOrderSpliterator(root, null, size(root));
+    }
+
+    /**
+     * Reduces every employee of the tree to a single result, in parallel on the
+     * common ForkJoinPool. Each task starts from its own identity, accumulates the
+     * employees of its subtrees, and the partial results are merged with the
+     * combiner; employees are visited in no particular order. The tree must not be
+     * modified until aggregate returns.
+     * @param identity Creates an empty result, once per task
+     * @param accumulator Adds an employee to a result and returns the result
+     * @param combiner Merges two results and returns the merged result
+     * @param <R> The type of the result
+     * @return The result over every employee of the tree
+     */
+    public <R> R aggregate(Supplier<R> identity, BiFunction<R, Employee, R> accumulator,
+                           BinaryOperator<R> combiner){
+        return ForkJoinPool.commonPool().invoke(new AggregateTask<>(root, identity, accumulator, combiner));
+    }
+
+    /**
+     * Returns the total salary of every employee, computed in parallel. Unlike
+     * salaryTotal, it does not rely on the salaries being changed through adjustSalary.
+     * @return The total payroll of the tree
+     */
+    public double totalPayroll(){
+        return aggregate(() -> new double[1],
+                (total, emp) -> {
+                    total[0] += emp.getSalary();
+                    return total;
+                },
+                (left, right) -> {
+                    left[0] += right[0];
+                    return left;
+                })[0];
+    }
+
+    /**
+     * Returns the number of employees of each department, computed in parallel
+     * @return The headcount of each department, by department name
+     */
+    public Map<String, Integer> headcountByDepartment(){
+        return aggregate(HashMap<String, Integer>::new,
+                (counts, emp) -> {
+                    counts.merge(emp.getDepartment(), 1, Integer::sum);
+                    return counts;
+                },
+                (left, right) -> {
+                    right.forEach((department, count) -> left.merge(department, count, Integer::sum));
+                    return left;
+                });
+    }
+
+    /**
+     * Returns a histogram of the salaries, computed in parallel. Bucket i counts the
+     * salaries from i * bucketWidth (included) to (i + 1) * bucketWidth (excluded);
+     * negative salaries are counted in the first bucket and salaries past the last
+     * bucket in the last one.
+     * @param bucketWidth The range of salaries covered by each bucket
+     * @param buckets The number of buckets
+     * @return The number of employees in each bucket
+     * @throws IllegalArgumentException if the width or the number of buckets is not positive
+     */
+    public int[] salaryHistogram(double bucketWidth, int buckets){
+        if(!(bucketWidth > 0) || buckets <= 0)
+            throw new IllegalArgumentException("Bucket width and count must be positive");
+
+        return aggregate(() -> new int[buckets],
+                (histogram, emp) -> {
+                    double bucket = Math.floor(emp.getSalary() / bucketWidth);
+                    histogram[(int) Math.max(0, Math.min(buckets - 1, bucket))]++;
+                    return histogram;
+                },
+                (left, right) -> {
+                    for(var i = 0; i < buckets; i++)
+                        left[i] += right[i];
+                    return left;
+                });
     }
 
     /**
@@ -366,48 +770,535 @@ public class HumanResourcesTree {
     }
 
     /**
-     * Mainly called by the copy constructor to copy another Binary Search
-     * Tree's elements. Similar to an inorder traversal in which the left subtrees
-     * are copied first followed by the right but instead of starting to copy
-     * as soon as the left-most child is reached and work its way back up, it starts
-     * to copy from the root downwards.
-     *
-     * @param thisPresent "this" binary tree's current or present node
-     * @param otherPresent the tree to copy's current or present node
+     * Aggregates a subtree. While the subtree is large, the task forks a task for
+     * the smaller child, accumulates the node itself, and goes on with the larger
+     * child; small subtrees are walked sequentially. The loop keeps the depth of
+     * nested tasks low even when the tree is not balanced.
+     * @param <R> The type of the result
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private class AggregateTask<R> extends RecursiveTask<R> {
+        private final Node subtree;
+        private final Supplier<R> identity;
+        private final BiFunction<R, Employee, R> accumulator;
+        private final BinaryOperator<R> combiner;
+
+        /**
+         * 4-arg constructor to set the subtree and the reduction
+         * @param subtree The root of the subtree to aggregate, may be null
+         * @param identity Creates an empty result
+         * @param accumulator Adds an employee to a result
+         * @param combiner Merges two results
+         */
+        AggregateTask(Node subtree, Supplier<R> identity, BiFunction<R, Employee, R> accumulator,
+                      BinaryOperator<R> combiner){
+            this.subtree = subtree;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute(){
+            Stack<AggregateTask<R>> forked = new Stack<>();
+            R result = identity.get();
+            Node present = subtree;
+
+            while(size(present) > SEQUENTIAL_THRESHOLD){
+                boolean leftLarger = size(present.left) >= size(present.right);
+                Node smaller = leftLarger ? present.right : present.left;
+
+                if(size(smaller) > SEQUENTIAL_THRESHOLD){
+                    AggregateTask<R> task = new AggregateTask<>(smaller, identity, accumulator, combiner);
+                    task.fork();
+                    forked.push(task);
+                }
+                else
+                    result = walk(smaller, result);
+
+                result = accumulator.apply(result, present.data);
+                present = leftLarger ? present.left : present.right;
+            }
+
+            result = walk(present, result);
+
+            while(!forked.isEmpty())
+                result = combiner.apply(result, forked.pop().join());
+
+            return result;
+        }
+
+        /**
+         * Accumulates every employee of a subtree sequentially, using an explicit stack
+         * @param present The root of the subtree, may be null
+         * @param result The result to accumulate into
+         * @return The result
+         */
+        private R walk(Node present, R result){
+            Stack<Node> pending = new Stack<>();
+
+            if(present != null)
+                pending.push(present);
+
+            while(!pending.isEmpty()){
+                Node next = pending.pop();
+                result = accumulator.apply(result, next.data);
+
+                if(next.left != null)
+                    pending.push(next.left);
+                if(next.right != null)
+                    pending.push(next.right);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Walks a part of the tree in order with an explicit stack. The part is a whole
+     * subtree (pending), followed by the nodes of the stack from top to bottom, each
+     * followed by its right subtree, except for the last node of the part (fence),
+     * whose right subtree belongs to another part.
      */
-    private void copy(Node thisPresent, Node otherPresent) {
-        if(otherPresent == null)
-            return;
+    private class InOrderSpliterator implements Spliterator<Employee> {
+        private Node pending; // subtree not entered yet, walked before the stack
+        private final Stack<Node> path = new Stack<>();
+        private final Node fence;
+        private int remaining;
+
+        /**
+         * 3-arg constructor to set the part of the tree to walk
+         * @param pending The subtree walked first, may be null
+         * @param fence The node walked after the subtree and ending the part, null
+         *              if the part is the subtree only
+         * @param remaining The number of employees of the part
+         */
+        InOrderSpliterator(Node pending, Node fence, int remaining){
+            this.pending = pending;
+            this.fence = fence;
+            this.remaining = remaining;
+
+            if(fence != null)
+                path.push(fence);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Employee> action){
+            for(Node present = pending; present != null; present = present.left)
+                path.push(present);
+            pending = null;
 
-        if(thisPresent == null) {
-            thisPresent = new Node();
+            if(path.isEmpty())
+                return false;
 
-            thisPresent.data = otherPresent.data;
-            thisPresent.right = otherPresent.right;
-            thisPresent.left = otherPresent.left;
+            Node present = path.pop();
+
+            if(present != fence)
+                pending = present.right;
+            remaining--;
+
+            action.accept(present.data);
+            return true;
+        }
+
+        /**
+         * Hands off the left subtree of the pending subtree and its root, and keeps
+         * the right subtree. Without a pending subtree, hands off the node on top of
+         * the stack and keeps its right subtree, to be split next time.
+         * @return The first part of the employees, null if there are too few to split
+         */
+        @Override
+        public Spliterator<Employee> trySplit(){
+            if(remaining < 2)
+                return null;
+
+            if(pending != null){
+                Node pivot = pending;
+                int handedOff = size(pivot.left) + 1;
+
+                pending = pivot.right;
+                remaining -= handedOff;
+
+                return new InOrderSpliterator(pivot.left, pivot, handedOff);
+            }
+
+            // The left subtree of the node on top of the stack has already been walked
+            Node pivot = path.pop();
+
+            pending = pivot.right;
+            remaining--;
+
+            return new InOrderSpliterator(null, pivot, 1);
         }
 
-        copy(thisPresent.left, otherPresent.left);
+        @Override
+        public long estimateSize(){
+            return remaining;
+        }
+
+        @Override
+        public int characteristics(){
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super Employee> getComparator(){
+            return null; // natural order of Employee
+        }
+    }
+
+    /**
+     * Collects the employees to bulk-load into an array
+     * @param employees The employees to store, in any order
+     * @return A new array holding the employees, in iteration order
+     */
+    private static Employee[] toArray(Iterable<Employee> employees){
+        List<Employee> collected = new ArrayList<>();
+
+        for(Employee emp : employees)
+            collected.add(emp);
+
+        return collected.toArray(new Employee[0]);
+    }
+
+    /**
+     * Mainly called by the bulk-load constructor to build a perfectly balanced
+     * subtree from a sorted range of employees, the middle one becoming its root
+     * @param sorted Employees sorted by employeeID, without duplicates
+     * @param low The first index of the range
+     * @param high The last index of the range
+     * @return The root of the subtree, null if the range is empty
+     */
+    private Node build(Employee[] sorted, int low, int high){
+        if(low > high)
+            return null;
 
-        thisPresent.data = otherPresent.data;
-        thisPresent.right = otherPresent.right;
-        thisPresent.left = otherPresent.left;
+        int middle = (low + high) >>> 1;
+        Node present = new Node(sorted[middle]);
+
+        present.left = build(sorted, low, middle - 1);
+        present.right = build(sorted, middle + 1, high);
+        update(present);
+
+        return present;
+    }
 
-        copy(thisPresent.right, otherPresent.right);
+    /**
+     * Walks back up the path of an insertion or deletion, from the lowest node to
+     * the root, updating the height of each node and, in balanced mode, rotating
+     * the nodes that became unbalanced
+     * @param path The nodes from the root down to the parent of the changed node
+     */
+    private void retrace(Stack<Node> path){
+        while(!path.isEmpty()){
+            Node present = path.pop();
+            update(present);
+
+            if(balanced){
+                Node subtree = rebalance(present);
+
+                if(subtree != present)
+                    replaceChild(path.lookUp(), present, subtree);
+            }
+        }
     }
 
     /**
-     * Mainly called by the no-arg toString method to
-     * print the elements of the Binary Search Tree
-     * using the inorder traversal
-     * @param current The current node
-     * @return The String representation of the tree's elements
+     * Replaces a child of the parent node, or the root if there is no parent
+     * @param parent The parent of oldChild, null if oldChild is the root
+     * @param oldChild The node to replace
+     * @param newChild The node replacing oldChild, may be null
      */
-    private String toString(Node current){
-        if(current == null)
-            return "";
+    private void replaceChild(Node parent, Node oldChild, Node newChild){
+        if(parent == null)
+            root = newChild;
+        else if(parent.left == oldChild)
+            parent.left = newChild;
         else
-            return toString(current.left) + current.data + toString(current.right);
+            parent.right = newChild;
+    }
+
+    /**
+     * Restores the AVL property of a node whose subtrees' heights differ by 2,
+     * with a single or double rotation
+     * @param present The node to rebalance
+     * @return The root of the rebalanced subtree
+     */
+    private Node rebalance(Node present){
+        int balance = height(present.left) - height(present.right);
+
+        // Rotations relink the children (and grandchildren) too, so they must be owned
+        if(balance > 1){
+            Node left = own(present, present.left);
+
+            if(height(left.left) < height(left.right)){
+                own(left, left.right);
+                present.left = rotateLeft(left);
+            }
+            return rotateRight(present);
+        }
+        if(balance < -1){
+            Node right = own(present, present.right);
+
+            if(height(right.right) < height(right.left)){
+                own(right, right.left);
+                present.right = rotateRight(right);
+            }
+            return rotateLeft(present);
+        }
+
+        return present;
+    }
+
+    /**
+     * Rotates a subtree to the left: its right child becomes its root
+     * @param present The root of the subtree
+     * @return The new root of the subtree
+     */
+    private Node rotateLeft(Node present){
+        Node child = present.right;
+
+        present.right = child.left;
+        child.left = present;
+
+        update(present);
+        update(child);
+        rotations++;
+
+        return child;
+    }
+
+    /**
+     * Rotates a subtree to the right: its left child becomes its root
+     * @param present The root of the subtree
+     * @return The new root of the subtree
+     */
+    private Node rotateRight(Node present){
+        Node child = present.left;
+
+        present.left = child.right;
+        child.right = present;
+
+        update(present);
+        update(child);
+        rotations++;
+
+        return child;
+    }
+
+    /**
+     * Recomputes the height of a node from the heights of its children
+     * @param present The node to update
+     */
+    private void update(Node present){
+        present.height = 1 + Math.max(height(present.left), height(present.right));
+        present.size = 1 + size(present.left) + size(present.right);
+        present.salarySum = present.data.getSalary() + salarySum(present.left) + salarySum(present.right);
+    }
+
+    /**
+     * Returns the number of employees in a subtree
+     * @param present The root of the subtree, may be null
+     * @return The number of employees in the subtree, 0 if it is empty
+     */
+    private static int size(Node present){
+        return (present == null) ? 0 : present.size;
+    }
+
+    /**
+     * Returns the total salary of a subtree
+     * @param present The root of the subtree, may be null
+     * @return The total salary of the subtree, 0 if it is empty
+     */
+    private static double salarySum(Node present){
+        return (present == null) ? 0 : present.salarySum;
+    }
+
+    /**
+     * Returns the total salary of the employees of a subtree from the given bound
+     * on, adding only the sums of subtrees entirely within the range
+     * @param present The root of the subtree, may be null
+     * @param from The lowest employee of the range, null for no lower bound
+     * @return The total salary of the employees of the subtree not before from
+     */
+    private static double salaryFrom(Node present, Employee from){
+        if(from == null)
+            return salarySum(present);
+
+        double total = 0;
+
+        while(present != null){
+            if(present.data.compareTo(from) >= 0){
+                total += present.data.getSalary() + salarySum(present.right);
+                present = present.left;
+            }
+            else
+                present = present.right;
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the total salary of the employees of a subtree up to the given bound,
+     * adding only the sums of subtrees entirely within the range
+     * @param present The root of the subtree, may be null
+     * @param to The highest employee of the range, null for no upper bound
+     * @return The total salary of the employees of the subtree not after to
+     */
+    private static double salaryUpTo(Node present, Employee to){
+        if(to == null)
+            return salarySum(present);
+
+        double total = 0;
+
+        while(present != null){
+            if(present.data.compareTo(to) <= 0){
+                total += present.data.getSalary() + salarySum(present.left);
+                present = present.right;
+            }
+            else
+                present = present.left;
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the height of a subtree
+     * @param present The root of the subtree, may be null
+     * @return The height of the subtree, 0 if it is empty
+     */
+    private static int height(Node present){
+        return (present == null) ? 0 : present.height;
+    }
+
+    /**
+     * Returns an in-order iterator over the employees within the given bounds. It
+     * starts by pushing the path to the first employee within the range, then
+     * stops as soon as the next employee is past the upper bound.
+     * @param from The lower bound, null for none
+     * @param fromInclusive true if the lower bound is part of the range
+     * @param to The upper bound, null for none
+     * @param toInclusive true if the upper bound is part of the range
+     * @return An Iterator over the employees within the bounds
+     */
+    private Iterator<Employee> rangeIterator(Employee from, boolean fromInclusive,
+                                             Employee to, boolean toInclusive){
+        return new Iterator<Employee>() {
+            // Nodes whose left subtree is being visited, the next one on top
+            Stack<Node> path = new Stack<>();
+
+            {
+                Node present = root;
+
+                while(present != null) {
+                    int compare = (from == null) ? 1 : present.data.compareTo(from);
+
+                    if(compare > 0 || (compare == 0 && fromInclusive)) {
+                        path.push(present);
+                        present = present.left;
+                    }
+                    else
+                        present = present.right;
+                }
+            }
+
+            /**
+             * Pushes a node and all its left descendants
+             * @param present The node to start from
+             */
+            private void pushLeftSpine(Node present) {
+                while(present != null) {
+                    path.push(present);
+                    present = present.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                if(path.isEmpty())
+                    return false;
+                if(to == null)
+                    return true;
+
+                int compare = path.lookUp().data.compareTo(to);
+                return compare < 0 || (compare == 0 && toInclusive);
+            }
+
+            @Override
+            public Employee next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+
+                Node present = path.pop();
+                pushLeftSpine(present.right);
+
+                return present.data;
+            }
+        };
+    }
+
+    /**
+     * Returns the path from the root down to the node holding the given employee,
+     * first copying the shared nodes of the path so that they can be modified
+     * @param emp An employee with the employeeID to find
+     * @return The owned nodes from the root down to the employee's node (on top),
+     *         null if the employee is not in the tree
+     */
+    private Stack<Node> searchOwnedPath(Employee emp){
+        Stack<Node> path = new Stack<>();
+        Node present = root;
+
+        while(present != null && !(present.data.equals(emp))){
+            path.push(present);
+            present = (present.data.compareTo(emp) > 0) ? present.left : present.right;
+        }
+
+        if(present == null)
+            return null;
+
+        path.push(present);
+
+        return ownPath(path);
+    }
+
+    /**
+     * Makes sure every node of a path from the root downwards is owned by this
+     * tree, replacing the shared ones by copies linked to their owned parent
+     * @param path Nodes from the root down, each one a child of the previous one
+     * @return The same path, made of owned nodes
+     */
+    private Stack<Node> ownPath(Stack<Node> path){
+        Stack<Node> reversed = new Stack<>();
+        Stack<Node> owned = new Stack<>();
+
+        while(!path.isEmpty())
+            reversed.push(path.pop());
+
+        while(!reversed.isEmpty())
+            owned.push(own(owned.lookUp(), reversed.pop()));
+
+        return owned;
+    }
+
+    /**
+     * Returns a child of an owned node, first replacing it by an owned copy if it
+     * is shared with a copy of this tree
+     * @param parent The owned parent of child, null if child is the root
+     * @param child The child to own, may be null
+     * @return The owned node standing for child, which is child itself if it was
+     *         already owned
+     */
+    private Node own(Node parent, Node child){
+        if(child == null || child.owner == owner)
+            return child;
+
+        Node copy = new Node(child);
+        replaceChild(parent, child, copy);
+
+        return copy;
     }
 
 }
@@ -3,12 +3,29 @@ package main;
 import com.google.common.math.IntMath;
 
 import org.jetbrains.annotations.Contract;
-import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A LinkedList data structure to store Employee objects sorted chronologically by employeeID
  *
+ * The list can optionally be indexed by a skip list: every node is also linked, with
+ * probability 1/2, 1/4, 1/8..., into index levels that skip over more and more
+ * nodes, so that searches, insertions and deletions run in expected O(log n)
+ * instead of walking the whole list from its head. The list itself, and therefore
+ * its order, is the same with or without the index.
+ *
+ * Every node also links back to the previous one, and the list keeps its last node,
+ * so that it can be walked in decreasing order without recursion. The renderers
+ * (writeTo and writeDecreasing) stream the employees to an Appendable one by one.
+ *
  * Assignment: 1
  *
  * @author Jonnie Quezada
@@ -18,8 +35,16 @@ import org.jetbrains.annotations.NotNull;
 
 public class HumanResources {
     private Node head;
+    private Node tail;
     private int count = 0;
 
+    // Skip-list index, only used if the list is indexed
+    private final boolean indexed;
+    private final Node[] levels; // first node of each index level
+    private int level; // number of index levels in use
+
+    private static final int MAX_LEVEL = 24;
+
     private final int ONE = 1;
 
     private final boolean SUCCESS = true;
@@ -33,11 +58,13 @@ public class HumanResources {
      *********************************************************
      */
     /**
-     * Each node holds an main.Employee object and an address to the next Node
+     * Each node holds an main.Employee object and an address to the next and previous Node
      */
     private class Node {
         private Employee employee;
         private Node next;
+        private Node prev;
+        private Node[] skip; // next node at each index level the node belongs to, null for none
 
         /**
          * No-arg constructor to set the Node's fields to null
@@ -75,6 +102,86 @@ public class HumanResources {
      * ********************************************************
      */
 
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Change
+     *********************************************************
+     */
+    /**
+     * A single change to apply with applyBatch: the addition or deletion of an
+     * employee, or the change of an employee's salary or department
+     */
+    public static class Change {
+        private enum Operation { ADD, DELETE, SALARY, DEPARTMENT }
+
+        private final Operation operation;
+        private final Employee employee; // the employee to add, or only the employeeID
+        private final double salary;
+        private final String department;
+
+        /**
+         * Private constructor, use the static factory methods to create a Change
+         * @param operation The kind of change
+         * @param employee The employee to add, or an Employee holding the employeeID
+         * @param salary The salary adjustment, for SALARY changes
+         * @param department The new department, for DEPARTMENT changes
+         */
+        private Change(Operation operation, Employee employee, double salary, String department) {
+            this.operation = operation;
+            this.employee = employee;
+            this.salary = salary;
+            this.department = department;
+        }
+
+        /**
+         * Creates the addition of an employee, as addEmployee would
+         * @param emp The main.Employee object to be added
+         * @return The change
+         */
+        public static Change add(Employee emp) {
+            return new Change(Operation.ADD, new Employee(emp), 0, null);
+        }
+
+        /**
+         * Creates the deletion of an employee, as deleteEmployee would
+         * @param employeeID The ID of the main.Employee to delete
+         * @return The change
+         */
+        public static Change delete(String employeeID) {
+            return new Change(Operation.DELETE, new Employee(employeeID), 0, null);
+        }
+
+        /**
+         * Creates the adjustment of an employee's salary, as adjustSalary would
+         * @param employeeID The employee the change will apply to
+         * @param salary The amount to add to the employee's salary
+         * @return The change
+         */
+        public static Change adjustSalary(String employeeID, double salary) {
+            return new Change(Operation.SALARY, new Employee(employeeID), salary, null);
+        }
+
+        /**
+         * Creates the change of an employee's department, as changeDepartment would
+         * @param employeeID The employee the change will apply to
+         * @param department The new department of the employee
+         * @return The change
+         */
+        public static Change changeDepartment(String employeeID, String department) {
+            return new Change(Operation.DEPARTMENT, new Employee(employeeID), 0, department);
+        }
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Change
+     * Implementation
+     * ********************************************************
+     */
+
     /*
      ********************************************************
      * START
@@ -83,10 +190,21 @@ public class HumanResources {
      *********************************************************
      */
     /**
-     * No-arg constructor to set the LinkedList's field, head, to null
+     * No-arg constructor to set the LinkedList's field, head, to null. The
+     * list is not indexed.
      */
     public HumanResources() {
+        this(false);
+    }
+
+    /**
+     * Constructor to create an empty list, indexed by a skip list or not
+     * @param indexed true to keep a skip-list index over the list
+     */
+    public HumanResources(boolean indexed) {
         head = null;
+        this.indexed = indexed;
+        levels = indexed ? new Node[MAX_LEVEL] : null;
     }
 
     /**
@@ -95,6 +213,8 @@ public class HumanResources {
      * @param hr The LinkedList to copy
      */
     public HumanResources(HumanResources hr) {
+        this(hr.indexed);
+
         //Only copy if the parameter object is not empty
         if(!hr.isEmpty()) {
             Node present = hr.head; //Pointer for the LinkedList hr
@@ -115,12 +235,18 @@ public class HumanResources {
             while(present != null) {
                 add = new Node(present.employee);
                 thyList.next = add;
+                add.prev = thyList;
 
                 present = present.next; //"Iterate" present until the last element is reached
                 thyList = thyList.next; //Follow present
                 count = IntMath.checkedAdd(count, ONE);
             }
+
+            tail = thyList;
         }
+
+        if(indexed)
+            buildIndex();
     }
 
     /*
@@ -138,6 +264,7 @@ public class HumanResources {
      */
     public boolean addEmployee(Employee emp) {
         Node add = new Node(emp);
+        Node[] predecessors = indexed ? new Node[MAX_LEVEL] : null;
 
         /* Add if empty or add at
          * the beginning of the list
@@ -145,13 +272,14 @@ public class HumanResources {
         if(head == null || head.employee.compareTo(emp) > 0) {
             add.next = head;
             head = add;
+            linkBack(add.next, add);
         }
         /*
          * Add at the middle
          * or at the end
          */
         else {
-            Node previous = searchPrevious(emp);
+            Node previous = searchPrevious(emp, predecessors);
             Node present = searchPresent(previous);
 
             // Check if duplicate
@@ -161,7 +289,13 @@ public class HumanResources {
 
             previous.next = add;
             add.next = present;
+            add.prev = previous;
+            linkBack(present, add);
         }
+
+        if(indexed)
+            linkIndex(add, predecessors);
+
         count = IntMath.checkedAdd(count, ONE);
 
         return SUCCESS;
@@ -176,10 +310,15 @@ public class HumanResources {
         Employee fired = new Employee(id);
        // System.out.println("ID: " + fired.getEmployeeID());
 
-        Node previous = searchPrevious(fired);
+        Node[] predecessors = indexed ? new Node[MAX_LEVEL] : null;
+        Node previous = searchPrevious(fired, predecessors);
         Node present = searchPresent(previous);
         if(present == null || ! present.employee.equals(fired))
         	return FAIL;
+
+        if(indexed)
+            unlinkIndex(present, predecessors);
+
         /* Deletion at the
          * beginning
          */
@@ -197,6 +336,8 @@ public class HumanResources {
                 previous.next = present.next;
         }
 
+        linkBack(present.next, previous);
+
         count = IntMath.checkedSubtract(count, ONE);
         return SUCCESS;
     }
@@ -253,12 +394,162 @@ public class HumanResources {
     }
 
     /**
-     * Calls the String:descending(Node) private function in order to get
-     * a String representation of the LinkedList in decreasing order
+     * Applies a batch of changes sorted by employeeID in a single pass over the
+     * list: a cursor moves forward from the head as the changes go, instead of
+     * every change searching from the head, so a batch of m changes costs
+     * O(n + m). Changes to the same employeeID are applied in the given order.
+     * Each change succeeds or fails as the corresponding single method would; if
+     * the list is indexed, its index is rebuilt once at the end.
+     * @param changes The changes, sorted by employeeID
+     * @return The number of changes that succeeded
+     * @throws IllegalArgumentException if the changes are not sorted by employeeID,
+     *                                  in which case none of them is applied
+     */
+    public int applyBatch(Iterable<Change> changes) {
+        List<Change> batch = new ArrayList<>();
+
+        for(Change change : changes) {
+            if(!batch.isEmpty() && batch.get(batch.size() - 1).employee.compareTo(change.employee) > 0)
+                throw new IllegalArgumentException("Changes are not sorted by employeeID at "
+                        + change.employee.getEmployeeID());
+
+            batch.add(change);
+        }
+
+        Node previous = null; // the cursor: last Node before the current change's employeeID
+        int applied = 0;
+
+        for(Change change : batch) {
+            Node present = searchPresent(previous);
+
+            while(present != null && present.employee.compareTo(change.employee) < 0) {
+                previous = present;
+                present = present.next;
+            }
+
+            boolean found = present != null && present.employee.equals(change.employee);
+
+            switch(change.operation) {
+                case ADD:
+                    if(found)
+                        continue;
+
+                    Node add = new Node(change.employee, present);
+
+                    if(previous == null)
+                        head = add;
+                    else
+                        previous.next = add;
+
+                    add.prev = previous;
+                    linkBack(present, add);
+
+                    count = IntMath.checkedAdd(count, ONE);
+                    break;
+                case DELETE:
+                    if(!found)
+                        continue;
+
+                    if(previous == null)
+                        head = present.next;
+                    else
+                        previous.next = present.next;
+
+                    linkBack(present.next, previous);
+
+                    count = IntMath.checkedSubtract(count, ONE);
+                    break;
+                case SALARY:
+                    if(!found)
+                        continue;
+
+                    present.employee.setSalary(present.employee.getSalary() + change.salary);
+                    break;
+                case DEPARTMENT:
+                    if(!found)
+                        continue;
+
+                    present.employee.setDepartment(change.department);
+                    break;
+            }
+
+            applied++;
+        }
+
+        // Added Nodes are not indexed yet and deleted ones are still linked in the index
+        if(indexed && applied > 0)
+            buildIndex();
+
+        return applied;
+    }
+
+    /**
+     * Returns a String representation of the LinkedList in decreasing order,
+     * built with writeDecreasing
      * @return A String representation of the LinkedList in decreasing order
      */
     public String decreasingOrder() {
-        return descending(head);
+        StringBuilder temp = new StringBuilder();
+
+        try {
+            writeDecreasing(temp);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+
+        return temp.toString();
+    }
+
+    /**
+     * Writes the same text as toString (a header, then one line per employee in
+     * increasing order) to the given destination, one employee at a time
+     * @param out The destination, e.g. a Writer or a StringBuilder
+     * @throws IOException if writing to the destination fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("|\tID\t|\t\t   Name   \t\t|  Department  |  Salary \n" +
+                "----------------------------------------------------------------------\n");
+
+        for(Node present = head; present != null; present = present.next)
+            out.append(String.valueOf(present.employee)).append("\n");
+    }
+
+    /**
+     * Writes the same text as decreasingOrder (one line per employee in decreasing
+     * order) to the given destination, walking the list backwards from its tail
+     * @param out The destination, e.g. a Writer or a StringBuilder
+     * @throws IOException if writing to the destination fails
+     */
+    public void writeDecreasing(Appendable out) throws IOException {
+        for(Node present = tail; present != null; present = present.prev)
+            out.append(String.valueOf(present.employee)).append("\n");
+    }
+
+    /**
+     * Returns an iterator over the list's employees in decreasing order of employeeID
+     * @return An Iterator walking the list backwards from its tail
+     */
+    public Iterator<Employee> descendingIterator() {
+        return new Iterator<Employee>() {
+            Node present = tail;
+
+            @Override
+            public boolean hasNext() {
+                return present != null;
+            }
+
+            @Override
+            public Employee next() {
+                if(present == null)
+                    throw new NoSuchElementException();
+
+                Employee emp = present.employee;
+                present = present.prev;
+
+                return emp;
+            }
+        };
     }
 
     /**
@@ -269,6 +560,14 @@ public class HumanResources {
         return this.count;
     }
 
+    /**
+     * Returns whether this list is indexed by a skip list
+     * @return true if the list is indexed, false otherwise
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
     /**
      * Method for indicating whether this list has items or not
      * @return true for empty, false for has items
@@ -284,14 +583,13 @@ public class HumanResources {
      * @return A String containing all the data for each main.Employee object in the list
      */
     public String toString() {
-        StringBuilder temp = new StringBuilder("|\tID\t|\t\t   Name   \t\t|  Department  |  Salary \n" +
-                "----------------------------------------------------------------------\n");
-
-        Node present = head;
+        StringBuilder temp = new StringBuilder();
 
-        while(present != null) {
-            temp.append(present.employee + "\n");
-            present = present.next;
+        try {
+            writeTo(temp);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
         }
 
         return temp.toString();
@@ -313,9 +611,34 @@ public class HumanResources {
      * @return The previous pointer (Node) that precedes the targeted Node
      */
     private Node searchPrevious(Employee emp) {
-        Node present = head;
+        return searchPrevious(emp, null);
+    }
+
+    /**
+     * Returns the Node preceding the targeted Node like searchPrevious(Employee),
+     * first descending the index levels (if any) to skip most of the list
+     * @param emp The target
+     * @param predecessors If not null, receives the last Node before the target at
+     *                     each index level in use (null when it is the level's head)
+     * @return The previous pointer (Node) that precedes the targeted Node
+     */
+    private Node searchPrevious(Employee emp, Node[] predecessors) {
         Node previous = null;
 
+        for(var i = level - 1; i >= 0; i--) {
+            Node present = (previous == null) ? levels[i] : previous.skip[i];
+
+            while(present != null && present.employee.compareTo(emp) < 0) {
+                previous = present;
+                present = present.skip[i];
+            }
+
+            if(predecessors != null)
+                predecessors[i] = previous;
+        }
+
+        Node present = searchPresent(previous);
+
         while(present != null && present.employee.compareTo(emp) < 0) {
             previous = present;
             present = present.next;
@@ -324,6 +647,95 @@ public class HumanResources {
         return previous;
     }
 
+    /**
+     * Links a Node just added to the list into a random number of index levels
+     * @param add The Node added
+     * @param predecessors The last Node before add at each index level in use,
+     *                     null for the level's head
+     */
+    private void linkIndex(Node add, Node[] predecessors) {
+        int height = randomHeight();
+
+        if(height == 0)
+            return;
+
+        add.skip = new Node[height];
+
+        // New levels start empty, so add goes right after their head
+        for(; level < height; level++)
+            predecessors[level] = null;
+
+        for(var i = 0; i < height; i++) {
+            if(predecessors[i] == null) {
+                add.skip[i] = levels[i];
+                levels[i] = add;
+            }
+            else {
+                add.skip[i] = predecessors[i].skip[i];
+                predecessors[i].skip[i] = add;
+            }
+        }
+    }
+
+    /**
+     * Unlinks a Node about to be deleted from every index level it belongs to
+     * @param fired The Node to delete
+     * @param predecessors The last Node before fired at each index level in use,
+     *                     null for the level's head
+     */
+    private void unlinkIndex(Node fired, Node[] predecessors) {
+        if(fired.skip == null)
+            return;
+
+        for(var i = 0; i < fired.skip.length; i++) {
+            if(predecessors[i] == null)
+                levels[i] = fired.skip[i];
+            else
+                predecessors[i].skip[i] = fired.skip[i];
+        }
+
+        while(level > 0 && levels[level - 1] == null)
+            level--;
+    }
+
+    /**
+     * Rebuilds the whole skip-list index over the list in a single pass,
+     * giving every Node a new random height. Mainly called by the copy
+     * constructor and applyBatch.
+     */
+    private void buildIndex() {
+        Node[] last = new Node[MAX_LEVEL]; // last Node linked at each level
+
+        Arrays.fill(levels, null);
+        level = 0;
+
+        for(Node present = head; present != null; present = present.next) {
+            int height = randomHeight();
+
+            present.skip = (height == 0) ? null : new Node[height];
+
+            for(var i = 0; i < height; i++) {
+                if(last[i] == null)
+                    levels[i] = present;
+                else
+                    last[i].skip[i] = present;
+
+                last[i] = present;
+            }
+
+            level = Math.max(level, height);
+        }
+    }
+
+    /**
+     * Returns the number of index levels a new Node belongs to: at least i with
+     * probability 1 / 2^i, up to MAX_LEVEL
+     * @return The height of the new Node
+     */
+    private static int randomHeight() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+    }
+
     /**
      * Returns the value of present (Node) based on the value of previous (Node)
      * @param previous The pointer (Node) that points to the node preceding the
@@ -336,18 +748,15 @@ public class HumanResources {
     }
 
     /**
-     * A recursive method for printing this LinkedList
-     * in descending order, order by employeeID
-     * @param pointer Points to the current Node
-     * @return A String representation of the List
-     * in descending order
-     */
-    @NotNull
-    private String descending(Node pointer) {
-        if(pointer == null)
-            return "";
-
-        return descending(pointer.next) + pointer.employee + "\n";
+     * Sets the backward link of the Node following a change to the list
+     * @param next The Node whose previous Node changed, null for the end of the list
+     * @param previous The Node now before it, null if next is now the head
+     */
+    private void linkBack(Node next, Node previous) {
+        if(next == null)
+            tail = previous;
+        else
+            next.prev = previous;
     }
 
     /**
@@ -0,0 +1,907 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * A disk-backed B+-tree storing Employee objects sorted chronologically by employeeID,
+ * for rosters that do not fit in the heap. It offers the same operations as
+ * HumanResourcesTree.
+ *
+ * The nodes live in fixed-size pages of a file, accessed through a FileChannel. Only
+ * a bounded number of pages are kept in memory, in a buffer pool evicting the least
+ * recently used page first (and writing it back if it was modified), so the upper
+ * levels of the tree and the hot leaves stay cached while the rest of the file is
+ * read on demand. Changes reach the file when their pages are evicted, on flush,
+ * and on close.
+ *
+ * File layout (big-endian), in pages of PAGE_SIZE bytes:
+ * <pre>
+ *   page 0   header: int magic, int version, int root page, int page count, int count
+ *   leaf     byte type, short count, int next leaf page (0 for none), then records of
+ *            long key, double salary, and the employeeId, name and department, each
+ *            as a short UTF-8 byte length (-1 for null) followed by fixed-width bytes
+ *   inner    byte type, short count, then count + 1 int child pages and count long
+ *            keys; keys[i] is the smallest key that can be found under child i + 1
+ * </pre>
+ * Only numeric employeeIDs are supported, and strings are limited to the width of
+ * their field. Deletions only remove the record from its leaf: pages are never freed
+ * nor merged, the space being reused by later insertions into the same leaf.
+ *
+ * Like HumanResourcesTree, this class is not thread-safe.
+ *
+ * @author Jonnie Quezada
+ * @version Java 10 SE
+ */
+public class PagedHumanResourcesTree implements Iterable<Employee>, Closeable {
+    private final FileChannel channel;
+    private final LinkedHashMap<Integer, Page> pool;
+    private final int poolPages;
+
+    private int root;
+    private int pageCount;
+    private int count;
+
+    private static final int MAGIC = 0x48525031; // "HRP1"
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+
+    private static final byte LEAF = 0;
+    private static final byte INNER = 1;
+    private static final int PAGE_HEADER_SIZE = 8;
+
+    private static final int ID_BYTES = 24;
+    private static final int NAME_BYTES = 48;
+    private static final int DEPARTMENT_BYTES = 48;
+    private static final int SALARY_OFFSET = Long.BYTES;
+    private static final int ID_OFFSET = 2 * Long.BYTES;
+    private static final int NAME_OFFSET = ID_OFFSET + ID_BYTES;
+    private static final int DEPARTMENT_OFFSET = NAME_OFFSET + NAME_BYTES;
+    private static final int RECORD_SIZE = DEPARTMENT_OFFSET + DEPARTMENT_BYTES;
+
+    private static final int LEAF_CAPACITY = (PAGE_SIZE - PAGE_HEADER_SIZE) / RECORD_SIZE;
+    private static final int INNER_CAPACITY = (PAGE_SIZE - PAGE_HEADER_SIZE - Integer.BYTES)
+            / (Integer.BYTES + Long.BYTES);
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Page
+     *********************************************************
+     */
+    /**
+     * Each cached page holds its number in the file, its bytes, and whether it was
+     * modified since it was read
+     */
+    private static class Page {
+        final int number;
+        final ByteBuffer data = ByteBuffer.allocate(PAGE_SIZE);
+        boolean dirty;
+
+        /**
+         * 1-arg constructor to set the Page's number
+         * @param number The number of the page in the file
+         */
+        Page(int number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * The result of splitting a node: the key separating it from its new right
+     * sibling, and the sibling's page
+     */
+    private static class Split {
+        final long key;
+        final int page;
+
+        /**
+         * 2-arg constructor to set the separator and the new page
+         * @param key The smallest key that can be found under the new page
+         * @param page The number of the new page
+         */
+        Split(long key, int page) {
+            this.key = key;
+            this.page = page;
+        }
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Page
+     * Implementation
+     * ********************************************************
+     */
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Opens a tree file, or creates an empty one if the file does not exist or is empty
+     * @param file The tree file
+     * @param poolPages The maximum number of pages kept in memory
+     * @throws IOException if the file cannot be opened or is not a valid tree file
+     * @throws IllegalArgumentException if the pool holds fewer than 2 pages
+     */
+    public PagedHumanResourcesTree(Path file, int poolPages) throws IOException {
+        if(poolPages < 2)
+            throw new IllegalArgumentException("Buffer pool must hold at least 2 pages: " + poolPages);
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.poolPages = poolPages;
+        this.pool = new LinkedHashMap<>(16, 0.75f, true);
+
+        try {
+            if(channel.size() == 0) {
+                pageCount = 1; // the header
+                root = allocate(LEAF).number;
+                flush();
+            }
+            else
+                readHeader(file);
+        }
+        catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Adds an employee to the Tree
+     *
+     * @param emp The Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     * @throws IOException if a page cannot be read or written
+     * @throws NumberFormatException if the employeeID is not numeric
+     * @throws IllegalArgumentException if a field does not fit in a record
+     */
+    public boolean addEmployee(Employee emp) throws IOException {
+        long key = Long.parseLong(emp.getEmployeeID());
+        byte[] record = encode(key, emp);
+
+        try {
+            ByteBuffer leaf = page(findLeaf(key)).data;
+
+            if(searchLeaf(leaf, key) >= 0)
+                return FAIL;
+
+            Split split = insert(root, key, record);
+
+            // The root was split: grow the tree by one level
+            if(split != null) {
+                Page newRoot = allocate(INNER);
+                setCount(newRoot.data, 1);
+                setChild(newRoot.data, 0, root);
+                setChild(newRoot.data, 1, split.page);
+                setKey(newRoot.data, 0, split.key);
+                root = newRoot.number;
+            }
+
+            count++;
+            return SUCCESS;
+        }
+        finally {
+            evict();
+        }
+    }
+
+    /**
+     * Delete the employee with the given employeeId from the Tree
+     * @return true for successful deletion, false for failed deletion
+     * @throws IOException if a page cannot be read or written
+     */
+    public boolean deleteEmployee(String employeeId) throws IOException {
+        Long key = keyOf(employeeId);
+
+        if(key == null)
+            return FAIL;
+
+        try {
+            Page leaf = page(findLeaf(key));
+            int index = searchLeaf(leaf.data, key);
+
+            if(index < 0)
+                return FAIL;
+
+            int size = count(leaf.data);
+            byte[] bytes = leaf.data.array();
+
+            System.arraycopy(bytes, recordOffset(index + 1), bytes, recordOffset(index),
+                    (size - index - 1) * RECORD_SIZE);
+            setCount(leaf.data, size - 1);
+            leaf.dirty = true;
+
+            count--;
+            return SUCCESS;
+        }
+        finally {
+            evict();
+        }
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeId The employee the change will apply to
+     * @param department The new department of the employee
+     * @return Boolean indicating if the change was successful
+     * @throws IOException if a page cannot be read or written
+     * @throws IllegalArgumentException if the department does not fit in a record
+     */
+    public boolean changeDepartment(String employeeId, String department) throws IOException {
+        byte[] encoded = encodeString(department, DEPARTMENT_BYTES);
+
+        return update(employeeId, (leaf, record) -> leaf.put(record + DEPARTMENT_OFFSET, encoded));
+    }
+
+    /**
+     * Increment or decrement a specific employee's salary
+     *
+     * @param employeeId The employee the change will apply to
+     * @param salary The amount by which the employee's salary
+     *               will be incremented (positive value) or
+     *               decremented (negative value)
+     * @return Boolean indicating if the change was successful
+     * @throws IOException if a page cannot be read or written
+     */
+    public boolean adjustSalary(String employeeId, double salary) throws IOException {
+        return update(employeeId, (leaf, record) ->
+                leaf.putDouble(record + SALARY_OFFSET, leaf.getDouble(record + SALARY_OFFSET) + salary));
+    }
+
+    /**
+     * Returns a new Employee object read from the tree. Changing it does not
+     * change the tree.
+     * @param employeeId The Id of the Employee you wish to find
+     * @return The Employee object corresponding to the employeeId, null if it is not
+     *         in the tree or is not numeric
+     * @throws IOException if a page cannot be read
+     */
+    public Employee findEmployee(String employeeId) throws IOException {
+        Long key = keyOf(employeeId);
+
+        if(key == null)
+            return null;
+
+        try {
+            ByteBuffer leaf = page(findLeaf(key)).data;
+            int index = searchLeaf(leaf, key);
+
+            return (index < 0) ? null : decode(leaf, index);
+        }
+        finally {
+            evict();
+        }
+    }
+
+    /**
+     * Method for indicating whether this tree has items or not
+     * @return true for empty, false for has items
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the number of employees in the tree
+     * @return The number of employees in the tree
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns an iterator over the tree's employees in employeeID order, reading
+     * the linked leaves one after the other
+     * @return An in-order Iterator over the tree's employees
+     * @throws UncheckedIOException if a page cannot be read
+     */
+    @Override
+    public Iterator<Employee> iterator() {
+        return rangeIterator(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a view of the employees whose employeeID is within the given range
+     * (both ends included), in employeeID order. Iterating the view descends the
+     * tree once, then reads the leaves sequentially.
+     * @param fromId The lowest employeeID of the range, null for no lower bound
+     * @param toId The highest employeeID of the range, null for no upper bound
+     * @return A view of the employees within the range
+     * @throws NumberFormatException if an employeeID is not numeric
+     */
+    public Iterable<Employee> rangeScan(String fromId, String toId) {
+        long from = (fromId == null) ? Long.MIN_VALUE : Long.parseLong(fromId);
+        long to = (toId == null) ? Long.MAX_VALUE : Long.parseLong(toId);
+
+        return () -> rangeIterator(from, to);
+    }
+
+    /**
+     * Writes every modified page and the header to the file and forces them to disk
+     * @throws IOException if a page cannot be written
+     */
+    public void flush() throws IOException {
+        for(Page page : pool.values())
+            if(page.dirty)
+                write(page);
+
+        ByteBuffer header = ByteBuffer.allocate(5 * Integer.BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(root)
+                .putInt(pageCount)
+                .putInt(count);
+        header.flip();
+
+        while(header.hasRemaining())
+            channel.write(header, header.position());
+
+        channel.force(false);
+    }
+
+    /**
+     * Flushes the tree and closes its file
+     * @throws IOException if the flush or the close fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            pool.clear();
+            channel.close();
+        }
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Changes the bytes of a record in place
+     */
+    private interface RecordUpdate {
+        void apply(ByteBuffer leaf, int recordOffset);
+    }
+
+    /**
+     * Applies a change to the record of an employee and marks its leaf as modified
+     * @param employeeId The employee the change will apply to
+     * @param change Changes the record
+     * @return true if the employee was found, false otherwise
+     * @throws IOException if a page cannot be read or written
+     */
+    private boolean update(String employeeId, RecordUpdate change) throws IOException {
+        Long key = keyOf(employeeId);
+
+        if(key == null)
+            return FAIL;
+
+        try {
+            Page leaf = page(findLeaf(key));
+            int index = searchLeaf(leaf.data, key);
+
+            if(index < 0)
+                return FAIL;
+
+            change.apply(leaf.data, recordOffset(index));
+            leaf.dirty = true;
+
+            return SUCCESS;
+        }
+        finally {
+            evict();
+        }
+    }
+
+    /**
+     * Returns an iterator over the employees whose key is within the given range
+     * (both ends included): descends to the leaf of the lower bound, then follows
+     * the leaf links
+     * @param from The lowest key of the range
+     * @param to The highest key of the range
+     * @return An in-order Iterator over the range
+     */
+    private Iterator<Employee> rangeIterator(long from, long to) {
+        return new Iterator<Employee>() {
+            ByteBuffer leaf;
+            int index;
+
+            {
+                try {
+                    leaf = page(findLeaf(from)).data;
+                    index = searchLeaf(leaf, from);
+                    if(index < 0)
+                        index = -index - 1;
+                    skipExhaustedLeaves();
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            /**
+             * Moves to the next leaves while the current one has no more records
+             * @throws IOException if a page cannot be read
+             */
+            private void skipExhaustedLeaves() throws IOException {
+                try {
+                    while(leaf != null && index >= count(leaf)) {
+                        int next = leaf.getInt(4);
+                        leaf = (next == 0) ? null : page(next).data;
+                        index = 0;
+                    }
+                }
+                finally {
+                    evict();
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return leaf != null && leaf.getLong(recordOffset(index)) <= to;
+            }
+
+            @Override
+            public Employee next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+
+                Employee emp = decode(leaf, index++);
+
+                try {
+                    skipExhaustedLeaves();
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                return emp;
+            }
+        };
+    }
+
+    /**
+     * Returns the page of the leaf where the given key is, or would be inserted
+     * @param key A numeric employeeID
+     * @return The number of the leaf's page
+     * @throws IOException if a page cannot be read
+     */
+    private int findLeaf(long key) throws IOException {
+        int number = root;
+        ByteBuffer present = page(number).data;
+
+        while(present.get(0) == INNER) {
+            number = child(present, childIndex(present, key));
+            present = page(number).data;
+        }
+
+        return number;
+    }
+
+    /**
+     * Inserts a record whose key is not in the tree into a subtree, splitting the
+     * pages that are full on the way back up
+     * @param number The page of the root of the subtree
+     * @param key The numeric employeeID
+     * @param record The encoded record
+     * @return The split of the page if it was full, null otherwise
+     * @throws IOException if a page cannot be read or written
+     */
+    private Split insert(int number, long key, byte[] record) throws IOException {
+        Page page = page(number);
+        ByteBuffer data = page.data;
+        int size = count(data);
+
+        if(data.get(0) == LEAF) {
+            int index = -searchLeaf(data, key) - 1;
+            byte[] bytes = data.array();
+
+            page.dirty = true;
+
+            if(size < LEAF_CAPACITY) {
+                System.arraycopy(bytes, recordOffset(index), bytes, recordOffset(index + 1),
+                        (size - index) * RECORD_SIZE);
+                System.arraycopy(record, 0, bytes, recordOffset(index), RECORD_SIZE);
+                setCount(data, size + 1);
+                return null;
+            }
+
+            // Lay out the full leaf plus the new record, then move the upper half to a new leaf
+            byte[] all = new byte[(size + 1) * RECORD_SIZE];
+            System.arraycopy(bytes, recordOffset(0), all, 0, index * RECORD_SIZE);
+            System.arraycopy(record, 0, all, index * RECORD_SIZE, RECORD_SIZE);
+            System.arraycopy(bytes, recordOffset(index), all, (index + 1) * RECORD_SIZE,
+                    (size - index) * RECORD_SIZE);
+
+            int half = (size + 1) / 2;
+            Page right = allocate(LEAF);
+
+            System.arraycopy(all, 0, bytes, recordOffset(0), half * RECORD_SIZE);
+            System.arraycopy(all, half * RECORD_SIZE, right.data.array(), recordOffset(0),
+                    (size + 1 - half) * RECORD_SIZE);
+            setCount(data, half);
+            setCount(right.data, size + 1 - half);
+
+            right.data.putInt(4, data.getInt(4));
+            data.putInt(4, right.number);
+
+            return new Split(right.data.getLong(recordOffset(0)), right.number);
+        }
+
+        int index = childIndex(data, key);
+        Split split = insert(child(data, index), key, record);
+
+        if(split == null)
+            return null;
+
+        page.dirty = true;
+
+        long keys[] = new long[size + 1];
+        int children[] = new int[size + 2];
+
+        for(var i = 0; i < size; i++)
+            keys[(i < index) ? i : i + 1] = key(data, i);
+        for(var i = 0; i <= size; i++)
+            children[(i <= index) ? i : i + 1] = child(data, i);
+
+        keys[index] = split.key;
+        children[index + 1] = split.page;
+
+        if(size < INNER_CAPACITY) {
+            writeInner(data, keys, children, 0, size + 1);
+            return null;
+        }
+
+        // The middle key moves up to the parent
+        int middle = (size + 1) / 2;
+        Page right = allocate(INNER);
+
+        writeInner(data, keys, children, 0, middle);
+        writeInner(right.data, keys, children, middle + 1, size + 1);
+
+        return new Split(keys[middle], right.number);
+    }
+
+    /**
+     * Writes a range of keys, and the children around them, to an inner page
+     * @param data The inner page
+     * @param keys The keys
+     * @param children The children, children[i + 1] following keys[i]
+     * @param from The first key to write
+     * @param to The key after the last one to write
+     */
+    private static void writeInner(ByteBuffer data, long[] keys, int[] children, int from, int to) {
+        for(var i = from; i < to; i++)
+            setKey(data, i - from, keys[i]);
+        for(var i = from; i <= to; i++)
+            setChild(data, i - from, children[i]);
+
+        setCount(data, to - from);
+    }
+
+    /**
+     * Returns the index of the child of an inner page under which the key is
+     * @param data An inner page
+     * @param key A numeric employeeID
+     * @return The index of the child to descend into
+     */
+    private static int childIndex(ByteBuffer data, long key) {
+        int low = 0;
+        int high = count(data) - 1;
+
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if(key(data, middle) <= key)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Binary searches a leaf for a key
+     * @param data A leaf page
+     * @param key A numeric employeeID
+     * @return The index of the key, or (-(insertion point) - 1) if it is not in the leaf
+     */
+    private static int searchLeaf(ByteBuffer data, long key) {
+        int low = 0;
+        int high = count(data) - 1;
+
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = data.getLong(recordOffset(middle));
+
+            if(middleKey < key)
+                low = middle + 1;
+            else if(middleKey > key)
+                high = middle - 1;
+            else
+                return middle;
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the number of records or keys of a page
+     * @param data A page
+     * @return The number of records (leaf) or keys (inner node)
+     */
+    private static int count(ByteBuffer data) {
+        return data.getShort(2);
+    }
+
+    /**
+     * Sets the number of records or keys of a page
+     * @param data A page
+     * @param count The number of records (leaf) or keys (inner node)
+     */
+    private static void setCount(ByteBuffer data, int count) {
+        data.putShort(2, (short) count);
+    }
+
+    /**
+     * Returns the position of a record in a leaf page
+     * @param index The index of the record
+     * @return The position of the record
+     */
+    private static int recordOffset(int index) {
+        return PAGE_HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Returns a child of an inner page
+     * @param data An inner page
+     * @param index The index of the child
+     * @return The number of the child's page
+     */
+    private static int child(ByteBuffer data, int index) {
+        return data.getInt(PAGE_HEADER_SIZE + index * Integer.BYTES);
+    }
+
+    /**
+     * Sets a child of an inner page
+     * @param data An inner page
+     * @param index The index of the child
+     * @param page The number of the child's page
+     */
+    private static void setChild(ByteBuffer data, int index, int page) {
+        data.putInt(PAGE_HEADER_SIZE + index * Integer.BYTES, page);
+    }
+
+    /**
+     * Returns a key of an inner page
+     * @param data An inner page
+     * @param index The index of the key
+     * @return The key
+     */
+    private static long key(ByteBuffer data, int index) {
+        return data.getLong(PAGE_HEADER_SIZE + (INNER_CAPACITY + 1) * Integer.BYTES + index * Long.BYTES);
+    }
+
+    /**
+     * Sets a key of an inner page
+     * @param data An inner page
+     * @param index The index of the key
+     * @param key The key
+     */
+    private static void setKey(ByteBuffer data, int index, long key) {
+        data.putLong(PAGE_HEADER_SIZE + (INNER_CAPACITY + 1) * Integer.BYTES + index * Long.BYTES, key);
+    }
+
+    /**
+     * Returns a page, reading it from the file if it is not in the buffer pool. The
+     * pool may grow past its capacity until the end of the current operation.
+     * @param number The number of the page
+     * @return The cached page
+     * @throws IOException if the page cannot be read
+     */
+    private Page page(int number) throws IOException {
+        Page page = pool.get(number);
+
+        if(page == null) {
+            page = new Page(number);
+            ByteBuffer buffer = page.data.duplicate();
+
+            while(buffer.hasRemaining())
+                if(channel.read(buffer, (long) number * PAGE_SIZE + buffer.position()) < 0)
+                    throw new IOException("Truncated tree file, missing page " + number);
+
+            pool.put(number, page);
+        }
+
+        return page;
+    }
+
+    /**
+     * Adds a new empty page at the end of the file
+     * @param type LEAF or INNER
+     * @return The new page, cached and marked as modified
+     */
+    private Page allocate(byte type) {
+        Page page = new Page(pageCount++);
+
+        page.data.put(0, type);
+        page.dirty = true;
+        pool.put(page.number, page);
+
+        return page;
+    }
+
+    /**
+     * Evicts the least recently used pages until the pool is back to its capacity,
+     * writing back the modified ones. Called at the end of every operation, so that
+     * no page is evicted while an operation still holds it.
+     * @throws IOException if a page cannot be written
+     */
+    private void evict() throws IOException {
+        Iterator<Page> eldest = pool.values().iterator();
+
+        while(pool.size() > poolPages) {
+            Page page = eldest.next();
+
+            if(page.dirty)
+                write(page);
+
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Writes a page to the file
+     * @param page The page to write
+     * @throws IOException if the page cannot be written
+     */
+    private void write(Page page) throws IOException {
+        ByteBuffer buffer = page.data.duplicate();
+        buffer.clear();
+
+        while(buffer.hasRemaining())
+            channel.write(buffer, (long) page.number * PAGE_SIZE + buffer.position());
+
+        page.dirty = false;
+    }
+
+    /**
+     * Reads and validates the header of an existing tree file
+     * @param file The tree file, for error messages
+     * @throws IOException if the header cannot be read or is not valid
+     */
+    private void readHeader(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5 * Integer.BYTES);
+
+        while(header.hasRemaining())
+            if(channel.read(header, header.position()) < 0)
+                throw new IOException("Not an employee tree file: " + file);
+
+        if(header.getInt(0) != MAGIC)
+            throw new IOException("Not an employee tree file: " + file);
+        if(header.getInt(4) != VERSION)
+            throw new IOException("Unsupported tree file version " + header.getInt(4) + ": " + file);
+
+        root = header.getInt(8);
+        pageCount = header.getInt(12);
+        count = header.getInt(16);
+
+        if(root <= 0 || root >= pageCount || count < 0 || channel.size() < (long) pageCount * PAGE_SIZE)
+            throw new IOException("Corrupted tree file: " + file);
+    }
+
+    /**
+     * Encodes an employee into a fixed-width record
+     * @param key The numeric employeeID
+     * @param emp The Employee object to encode
+     * @return The record's bytes
+     * @throws IllegalArgumentException if a field does not fit in the record
+     */
+    private static byte[] encode(long key, Employee emp) {
+        return ByteBuffer.allocate(RECORD_SIZE)
+                .putLong(key)
+                .putDouble(emp.getSalary())
+                .put(encodeString(emp.getEmployeeID(), ID_BYTES))
+                .put(encodeString(emp.getName(), NAME_BYTES))
+                .put(encodeString(emp.getDepartment(), DEPARTMENT_BYTES))
+                .array();
+    }
+
+    /**
+     * Materializes the employee of a leaf record
+     * @param leaf A leaf page
+     * @param index The index of the record
+     * @return A new Employee object
+     */
+    private static Employee decode(ByteBuffer leaf, int index) {
+        int offset = recordOffset(index);
+        double salary = leaf.getDouble(offset + SALARY_OFFSET);
+        String employeeId = decodeString(leaf, offset + ID_OFFSET);
+        String name = decodeString(leaf, offset + NAME_OFFSET);
+        String department = decodeString(leaf, offset + DEPARTMENT_OFFSET);
+
+        return new Employee(employeeId, name, department, salary);
+    }
+
+    /**
+     * Encodes a String into a fixed-width field: its UTF-8 byte length followed by
+     * its bytes, padded with zeros
+     * @param value The String to encode, may be null
+     * @param width The width of the field
+     * @return The field's bytes
+     * @throws IllegalArgumentException if the String does not fit in the field
+     */
+    private static byte[] encodeString(String value, int width) {
+        ByteBuffer field = ByteBuffer.allocate(width);
+
+        if(value == null)
+            return field.putShort(0, (short) -1).array();
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if(bytes.length > width - Short.BYTES)
+            throw new IllegalArgumentException("\"" + value + "\" is longer than "
+                    + (width - Short.BYTES) + " bytes");
+
+        return field.putShort((short) bytes.length).put(bytes).array();
+    }
+
+    /**
+     * Reads a String written by encodeString
+     * @param data The page holding the field
+     * @param offset The position of the field
+     * @return The String read, may be null
+     */
+    private static String decodeString(ByteBuffer data, int offset) {
+        int length = data.getShort(offset);
+
+        if(length < 0)
+            return null;
+
+        return new String(data.array(), offset + Short.BYTES, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts an employeeID to the numeric key stored in the tree
+     * @param employeeId employeeId of an Employee object
+     * @return The numeric value of the employeeID, null if it is not numeric
+     */
+    private static Long keyOf(String employeeId) {
+        try {
+            return Long.parseLong(employeeId);
+        }
+        catch(NumberFormatException e) {
+            return null;
+        }
+    }
+}
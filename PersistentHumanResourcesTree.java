@@ -0,0 +1,434 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe, persistent variant of HumanResourcesTree storing Employee objects
+ * sorted chronologically by employeeID in an AVL-balanced binary tree.
+ *
+ * Nodes are never modified once created. A write copies the nodes on the path from
+ * the root to the changed node (path copying), shares every other node with the
+ * previous version, and publishes the new root with a compare-and-set. If another
+ * writer published first, the write is retried on the newer version. Readers never
+ * lock: they read the current root once and work on that consistent version of the
+ * tree, whatever writers do in the meantime.
+ *
+ * Employee objects stored in the tree are never modified either; findEmployee returns
+ * a copy, and changeDepartment and adjustSalary store an updated copy.
+ *
+ * @author Jonnie Quezada
+ */
+public class PersistentHumanResourcesTree implements Iterable<Employee> {
+    private final AtomicReference<Node> root;
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Node
+     *********************************************************
+     */
+    /**
+     * Each immutable node holds an Employee object, the addresses of its right and
+     * left Node, and the height and size of the subtree it is the root of
+     */
+    private static final class Node {
+        final Employee data;
+
+        final Node left;
+        final Node right;
+
+        final int height;
+        final int size;
+
+        /**
+         * 3-arg constructor to set the Node's data and children
+         * @param data Employee object to store in the node, never modified afterwards
+         * @param left The left child, may be null
+         * @param right The right child, may be null
+         */
+        Node(Employee data, Node left, Node right) {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+
+            height = 1 + Math.max(height(left), height(right));
+            size = 1 + size(left) + size(right);
+        }
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Node
+     * Implementation
+     * ********************************************************
+     */
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * No-arg constructor to create an empty tree
+     */
+    public PersistentHumanResourcesTree() {
+        root = new AtomicReference<>(null);
+    }
+
+    /**
+     * Private constructor for snapshot
+     * @param version The root of the version of the tree to start from
+     */
+    private PersistentHumanResourcesTree(Node version) {
+        root = new AtomicReference<>(version);
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * Adds an employee to the Tree
+     *
+     * @param emp The Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     */
+    public boolean addEmployee(Employee emp) {
+        Employee add = new Employee(emp);
+
+        while(true) {
+            Node version = root.get();
+            Node updated = insert(version, add);
+
+            if(updated == version)
+                return FAIL;
+            if(root.compareAndSet(version, updated))
+                return SUCCESS;
+        }
+    }
+
+    /**
+     * Delete the employee with the given employeeId from the Tree
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String employeeId) {
+        Employee find = new Employee(employeeId);
+
+        while(true) {
+            Node version = root.get();
+            Node updated = delete(version, find);
+
+            if(updated == version)
+                return FAIL;
+            if(root.compareAndSet(version, updated))
+                return SUCCESS;
+        }
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeId The employee the change will apply to
+     * @param department The new department of the employee
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean changeDepartment(String employeeId, String department) {
+        return modify(employeeId, emp -> {
+            emp.setDepartment(department);
+            return emp;
+        });
+    }
+
+    /**
+     * Atomically increment or decrement a specific employee's salary
+     *
+     * @param employeeId The employee the change will apply to
+     * @param salary The amount by which the employee's salary
+     *               will be incremented (positive value) or
+     *               decremented (negative value)
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean adjustSalary(String employeeId, double salary) {
+        return modify(employeeId, emp -> {
+            emp.setSalary(salary + emp.getSalary());
+            return emp;
+        });
+    }
+
+    /**
+     * Returns a copy of the employee object who's employeeId matches the parameter
+     * @param employeeId The Id of the Employee you wish to find
+     * @return A copy of the Employee object corresponding to the parameter String employeeID
+     */
+    public Employee findEmployee(String employeeId) {
+        Employee find = new Employee(employeeId);
+        Node present = root.get();
+
+        while(present != null) {
+            int compare = present.data.compareTo(find);
+
+            if(compare == 0)
+                return new Employee(present.data);
+
+            present = (compare > 0) ? present.left : present.right;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns an independent fork of the tree as it is now. Taking it costs O(1), as
+     * both trees share every node. The fork is unaffected by later changes to this
+     * tree, and changes made to the fork do not affect this tree.
+     * @return A new tree holding the current version of this tree
+     */
+    public PersistentHumanResourcesTree snapshot() {
+        return new PersistentHumanResourcesTree(root.get());
+    }
+
+    /**
+     * Returns the number of employees in the tree
+     * @return The number of employees in the tree
+     */
+    public int size() {
+        return size(root.get());
+    }
+
+    /**
+     * Method for indicating whether this tree has items or not
+     * @return true for empty, false for has items
+     */
+    public boolean isEmpty() {
+        return root.get() == null;
+    }
+
+    /**
+     * Returns an iterator over copies of the tree's employees in employeeID order,
+     * over the version of the tree current when the iterator is created
+     * @return An in-order Iterator over the tree's employees
+     */
+    @Override
+    public Iterator<Employee> iterator() {
+        Node version = root.get();
+
+        return new Iterator<Employee>() {
+            Stack<Node> path = new Stack<>();
+
+            {
+                pushLeftSpine(version);
+            }
+
+            /**
+             * Pushes a node and all its left descendants
+             * @param present The node to start from
+             */
+            private void pushLeftSpine(Node present) {
+                while(present != null) {
+                    path.push(present);
+                    present = present.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Employee next() {
+                if(path.isEmpty())
+                    throw new NoSuchElementException();
+
+                Node present = path.pop();
+                pushLeftSpine(present.right);
+
+                return new Employee(present.data);
+            }
+        };
+    }
+
+    /**
+     * Returns a string representation of all the tree's elements, from a
+     * single consistent version of the tree
+     *
+     * @return A String containing all the data for each Employee object in the tree
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+
+        for(Employee emp : this)
+            out.append(emp);
+
+        return out.toString();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Replaces an employee by a modified copy, retrying until the new version is published
+     * @param employeeId The employee the change will apply to
+     * @param change Modifies the copy of the employee and returns it
+     * @return true if the employee was found, false otherwise
+     */
+    private boolean modify(String employeeId, UnaryOperator<Employee> change) {
+        Employee find = new Employee(employeeId);
+
+        while(true) {
+            Node version = root.get();
+            Node updated = replace(version, find, change);
+
+            if(updated == version)
+                return FAIL;
+            if(root.compareAndSet(version, updated))
+                return SUCCESS;
+        }
+    }
+
+    /**
+     * Returns a new version of a subtree holding the given employee
+     * @param present The root of the subtree
+     * @param emp The employee to add
+     * @return The root of the new version, or present itself if the employee was already there
+     */
+    private static Node insert(Node present, Employee emp) {
+        if(present == null)
+            return new Node(emp, null, null);
+
+        int compare = present.data.compareTo(emp);
+
+        if(compare == 0)
+            return present;
+
+        if(compare > 0) {
+            Node left = insert(present.left, emp);
+            return (left == present.left) ? present : balance(present.data, left, present.right);
+        }
+        else {
+            Node right = insert(present.right, emp);
+            return (right == present.right) ? present : balance(present.data, present.left, right);
+        }
+    }
+
+    /**
+     * Returns a new version of a subtree without the given employee
+     * @param present The root of the subtree
+     * @param emp An employee with the employeeID to delete
+     * @return The root of the new version, or present itself if the employee was not there
+     */
+    private static Node delete(Node present, Employee emp) {
+        if(present == null)
+            return null;
+
+        int compare = present.data.compareTo(emp);
+
+        if(compare > 0) {
+            Node left = delete(present.left, emp);
+            return (left == present.left) ? present : balance(present.data, left, present.right);
+        }
+        if(compare < 0) {
+            Node right = delete(present.right, emp);
+            return (right == present.right) ? present : balance(present.data, present.left, right);
+        }
+
+        if(present.left == null)
+            return present.right;
+        if(present.right == null)
+            return present.left;
+
+        // Replace by the successor, the leftmost node of the right subtree
+        Node successor = present.right;
+        while(successor.left != null)
+            successor = successor.left;
+
+        return balance(successor.data, present.left, delete(present.right, successor.data));
+    }
+
+    /**
+     * Returns a new version of a subtree in which the given employee is replaced by
+     * a modified copy
+     * @param present The root of the subtree
+     * @param emp An employee with the employeeID to replace
+     * @param change Modifies the copy of the employee and returns it
+     * @return The root of the new version, or present itself if the employee was not there
+     */
+    private static Node replace(Node present, Employee emp, UnaryOperator<Employee> change) {
+        if(present == null)
+            return null;
+
+        int compare = present.data.compareTo(emp);
+
+        if(compare == 0)
+            return new Node(change.apply(new Employee(present.data)), present.left, present.right);
+
+        if(compare > 0) {
+            Node left = replace(present.left, emp, change);
+            return (left == present.left) ? present : new Node(present.data, left, present.right);
+        }
+        else {
+            Node right = replace(present.right, emp, change);
+            return (right == present.right) ? present : new Node(present.data, present.left, right);
+        }
+    }
+
+    /**
+     * Creates a node from its data and children, applying a single or double
+     * rotation if the children's heights differ by 2
+     * @param data The Employee object of the node
+     * @param left The left child
+     * @param right The right child
+     * @return The root of the balanced subtree
+     */
+    private static Node balance(Employee data, Node left, Node right) {
+        if(height(left) > height(right) + 1) {
+            if(height(left.left) >= height(left.right))
+                return new Node(left.data, left.left, new Node(data, left.right, right));
+
+            Node middle = left.right;
+            return new Node(middle.data, new Node(left.data, left.left, middle.left),
+                    new Node(data, middle.right, right));
+        }
+        if(height(right) > height(left) + 1) {
+            if(height(right.right) >= height(right.left))
+                return new Node(right.data, new Node(data, left, right.left), right.right);
+
+            Node middle = right.left;
+            return new Node(middle.data, new Node(data, left, middle.left),
+                    new Node(right.data, middle.right, right.right));
+        }
+
+        return new Node(data, left, right);
+    }
+
+    /**
+     * Returns the height of a subtree
+     * @param present The root of the subtree, may be null
+     * @return The height of the subtree, 0 if it is empty
+     */
+    private static int height(Node present) {
+        return (present == null) ? 0 : present.height;
+    }
+
+    /**
+     * Returns the number of employees in a subtree
+     * @param present The root of the subtree, may be null
+     * @return The number of employees in the subtree, 0 if it is empty
+     */
+    private static int size(Node present) {
+        return (present == null) ? 0 : present.size;
+    }
+}
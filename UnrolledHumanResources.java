@@ -0,0 +1,430 @@
+package main;
+
+import com.google.common.math.IntMath;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unrolled LinkedList data structure to store Employee objects sorted
+ * chronologically by employeeID, with the same operations as HumanResources.
+ *
+ * Instead of one node per employee, each node holds a small sorted array of up to
+ * NODE_CAPACITY employees, so a scan follows one pointer per array rather than one
+ * per employee, and binary searches the array of the node the employee belongs to.
+ * A full node is split in two halves on insertion; a node left less than half full
+ * by a deletion borrows employees from the next node, or is merged with it when
+ * both fit in a single node.
+ *
+ * @author Jonnie Quezada
+ */
+public class UnrolledHumanResources {
+    private Node head;
+    private Node tail;
+    private int count = 0;
+
+    private static final int NODE_CAPACITY = 32;
+    private static final int MIN_FILL = NODE_CAPACITY / 2;
+
+    private final int ONE = 1;
+
+    private final boolean SUCCESS = true;
+    private final boolean FAIL = false;
+
+    /*
+     *********************************************************
+     * Implementation
+     * Of
+     * Node
+     *********************************************************
+     */
+    /**
+     * Each node holds a sorted array of main.Employee objects and an address to
+     * the next and previous Node
+     */
+    private static class Node {
+        private final Employee[] employees = new Employee[NODE_CAPACITY];
+        private int size;
+        private Node next;
+        private Node prev;
+    }
+    /*
+     *********************************************************
+     * End
+     * Of
+     * Node
+     * Implementation
+     * ********************************************************
+     */
+
+    /*
+     ********************************************************
+     * START
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * No-arg constructor to create an empty list
+     */
+    public UnrolledHumanResources() {
+        head = null;
+        tail = null;
+    }
+
+    /**
+     * Copy constructor to copy all the elements of the parameter list to this
+     * list, node by node
+     * @param hr The list to copy
+     */
+    public UnrolledHumanResources(UnrolledHumanResources hr) {
+        for(Node present = hr.head; present != null; present = present.next) {
+            Node add = new Node();
+
+            for(var i = 0; i < present.size; i++)
+                add.employees[i] = new Employee(present.employees[i]);
+
+            add.size = present.size;
+            linkAfter(tail, add);
+        }
+
+        count = hr.count;
+    }
+
+    /*
+     *********************************************************
+     * END
+     * OF
+     * CONSTRUCTORS
+     *********************************************************
+     */
+    /**
+     * A sorted addEmployee method. Assures the list stays in chronological
+     * order when new items are added
+     * @param emp The main.Employee object to be added
+     * @return true for successful insertion, false for failed insertion
+     */
+    public boolean addEmployee(Employee emp) {
+        if(head == null)
+            linkAfter(null, new Node());
+
+        Node present = searchNode(emp);
+        int index = Arrays.binarySearch(present.employees, 0, present.size, emp);
+
+        // Check if duplicate
+        if(index >= 0)
+            return FAIL;
+
+        index = -index - 1;
+
+        // Split a full node, moving its upper half to a new node after it
+        if(present.size == NODE_CAPACITY) {
+            Node right = new Node();
+
+            right.size = NODE_CAPACITY - MIN_FILL;
+            System.arraycopy(present.employees, MIN_FILL, right.employees, 0, right.size);
+            Arrays.fill(present.employees, MIN_FILL, NODE_CAPACITY, null);
+            present.size = MIN_FILL;
+            linkAfter(present, right);
+
+            if(index > MIN_FILL) {
+                present = right;
+                index -= MIN_FILL;
+            }
+        }
+
+        System.arraycopy(present.employees, index, present.employees, index + 1, present.size - index);
+        present.employees[index] = new Employee(emp);
+        present.size++;
+
+        count = IntMath.checkedAdd(count, ONE);
+
+        return SUCCESS;
+    }
+
+    /**
+     * Deletes the fired employee from the list
+     * @param id The ID of the main.Employee to delete
+     * @return true for successful deletion, false for failed deletion
+     */
+    public boolean deleteEmployee(String id) {
+        if(head == null)
+            return FAIL;
+
+        Employee fired = new Employee(id);
+        Node present = searchNode(fired);
+        int index = Arrays.binarySearch(present.employees, 0, present.size, fired);
+
+        if(index < 0)
+            return FAIL;
+
+        System.arraycopy(present.employees, index + 1, present.employees, index, present.size - index - 1);
+        present.employees[--present.size] = null;
+
+        if(present.size < MIN_FILL)
+            refill(present);
+
+        count = IntMath.checkedSubtract(count, ONE);
+
+        return SUCCESS;
+    }
+
+    /**
+     * Method allowing the retrieval of a specific main.Employee object
+     * @param employeeID The ID of the main.Employee you wish to find
+     * @return The main.Employee object corresponding to the parameter String employeeID
+     */
+    public Employee findEmployee(String employeeID) {
+        if(head == null)
+            return null;
+
+        Employee emp = new Employee(employeeID);
+        Node present = searchNode(emp);
+        int index = Arrays.binarySearch(present.employees, 0, present.size, emp);
+
+        return (index < 0) ? null : present.employees[index];
+    }
+
+    /**
+     * Allows to change a specific employee's department
+     * @param employeeID The employee the change will apply to
+     * @param department The new department of the employee
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean changeDepartment(String employeeID, String department) {
+        Employee emp = findEmployee(employeeID);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setDepartment(department);
+        return SUCCESS;
+    }
+
+    /**
+     * Allows to change a specific employee's salary
+     * @param employeeID The employee the change will apply to
+     * @param salary The adjusted salary of the employee
+     * @return Boolean indicating if the change was successful
+     */
+    public boolean adjustSalary(String employeeID, double salary) {
+        Employee emp = findEmployee(employeeID);
+
+        if(emp == null)
+            return FAIL;
+
+        emp.setSalary(emp.getSalary() + salary);
+        return SUCCESS;
+    }
+
+    /**
+     * Returns a String representation of the list in decreasing order, built
+     * with writeDecreasing
+     * @return A String representation of the list in decreasing order
+     */
+    public String decreasingOrder() {
+        StringBuilder temp = new StringBuilder();
+
+        try {
+            writeDecreasing(temp);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+
+        return temp.toString();
+    }
+
+    /**
+     * Writes the same text as toString (a header, then one line per employee in
+     * increasing order) to the given destination, one employee at a time
+     * @param out The destination, e.g. a Writer or a StringBuilder
+     * @throws IOException if writing to the destination fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("|\tID\t|\t\t   Name   \t\t|  Department  |  Salary \n" +
+                "----------------------------------------------------------------------\n");
+
+        for(Node present = head; present != null; present = present.next)
+            for(var i = 0; i < present.size; i++)
+                out.append(String.valueOf(present.employees[i])).append("\n");
+    }
+
+    /**
+     * Writes the same text as decreasingOrder (one line per employee in decreasing
+     * order) to the given destination, walking the list backwards from its tail
+     * @param out The destination, e.g. a Writer or a StringBuilder
+     * @throws IOException if writing to the destination fails
+     */
+    public void writeDecreasing(Appendable out) throws IOException {
+        for(Node present = tail; present != null; present = present.prev)
+            for(var i = present.size - 1; i >= 0; i--)
+                out.append(String.valueOf(present.employees[i])).append("\n");
+    }
+
+    /**
+     * Returns an iterator over the list's employees in decreasing order of employeeID
+     * @return An Iterator walking the list backwards from its tail
+     */
+    public Iterator<Employee> descendingIterator() {
+        return new Iterator<Employee>() {
+            Node present = tail;
+            int index = (tail == null) ? -1 : tail.size - 1;
+
+            @Override
+            public boolean hasNext() {
+                return present != null;
+            }
+
+            @Override
+            public Employee next() {
+                if(present == null)
+                    throw new NoSuchElementException();
+
+                Employee emp = present.employees[index--];
+
+                if(index < 0) {
+                    present = present.prev;
+                    index = (present == null) ? -1 : present.size - 1;
+                }
+
+                return emp;
+            }
+        };
+    }
+
+    /**
+     * Method to return the number of employees in this list
+     * @return The number of employees in this list
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Method for indicating whether this list has items or not
+     * @return true for empty, false for has items
+     */
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Returns a header followed by the data of every employee of the list, one
+     * per line in increasing order, built with writeTo
+     * @return A String containing all the data for each main.Employee object in the list
+     */
+    public String toString() {
+        StringBuilder temp = new StringBuilder();
+
+        try {
+            writeTo(temp);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+
+        return temp.toString();
+    }
+
+    /*
+     ******************************************
+     * Private
+     * Methods
+     ******************************************
+     */
+
+    /**
+     * Returns the node the given employee belongs to: the first node whose last
+     * employee is not before it, or the last node. The list must not be empty.
+     * @param emp The target
+     * @return The node to search or insert the employee in
+     */
+    private Node searchNode(Employee emp) {
+        Node present = head;
+
+        while(present.next != null && present.employees[present.size - 1].compareTo(emp) < 0)
+            present = present.next;
+
+        return present;
+    }
+
+    /**
+     * Refills a node left less than half full by a deletion: merges it with the
+     * next node if both fit in one node, otherwise moves employees from the next
+     * node so that both are about as full. The last node is merged into the
+     * previous one if they fit, and an empty node is removed.
+     * @param present The node to refill
+     */
+    private void refill(Node present) {
+        Node next = present.next;
+
+        if(next == null) {
+            if(present.prev != null && present.prev.size + present.size <= NODE_CAPACITY)
+                merge(present.prev, present);
+            else if(present.size == 0)
+                unlink(present);
+        }
+        else if(present.size + next.size <= NODE_CAPACITY)
+            merge(present, next);
+        else {
+            int moved = (next.size - present.size) / 2;
+
+            System.arraycopy(next.employees, 0, present.employees, present.size, moved);
+            System.arraycopy(next.employees, moved, next.employees, 0, next.size - moved);
+            Arrays.fill(next.employees, next.size - moved, next.size, null);
+            present.size += moved;
+            next.size -= moved;
+        }
+    }
+
+    /**
+     * Appends the employees of a node to the node before it, then removes it
+     * @param left The node receiving the employees
+     * @param right The node after left, removed from the list
+     */
+    private void merge(Node left, Node right) {
+        System.arraycopy(right.employees, 0, left.employees, left.size, right.size);
+        left.size += right.size;
+        unlink(right);
+    }
+
+    /**
+     * Links a new node into the list after the given one
+     * @param previous The node to link after, null to link at the head
+     * @param add The new node
+     */
+    private void linkAfter(Node previous, Node add) {
+        add.prev = previous;
+        add.next = (previous == null) ? head : previous.next;
+
+        if(previous == null)
+            head = add;
+        else
+            previous.next = add;
+
+        if(add.next == null)
+            tail = add;
+        else
+            add.next.prev = add;
+    }
+
+    /**
+     * Removes a node from the list
+     * @param present The node to remove
+     */
+    private void unlink(Node present) {
+        if(present.prev == null)
+            head = present.next;
+        else
+            present.prev.next = present.next;
+
+        if(present.next == null)
+            tail = present.prev;
+        else
+            present.next.prev = present.prev;
+    }
+}